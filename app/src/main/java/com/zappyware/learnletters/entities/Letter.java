@@ -1,15 +0,0 @@
-package com.zappyware.learnletters.entities;
-
-import java.util.ArrayList;
-
-/**
- * Created by Csaba on 2015.02.24..
- */
-public class Letter {
-
-    public ArrayList<Point> points;
-
-    public Letter() {
-        points = new ArrayList<Point>();
-    }
-}
@@ -0,0 +1,362 @@
+package com.zappyware.learnletters.ui;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import com.zappyware.learnletters.R;
+import com.zappyware.learnletters.entities.Letter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shows many letters at once in a grid, drawn by one view instead of one
+ * {@link LetterView} each. All letters share the paints, each letter's points and lines
+ * are kept as pixel arrays drawn in one call apiece, and changing one letter redraws
+ * only its cell. Taps are routed to the letter under the finger.
+ */
+public class AlphabetBoardView extends View {
+
+    private static final int DEFAULT_COLUMNS = 6;
+
+    /** Dot size and line width, as fractions of the drawable part of a cell. */
+    private static final float DOT_SIZE_FRACTION = 0.06f;
+    private static final float LINE_WIDTH_FRACTION = 0.025f;
+    /** Room for antialiasing around the dots, in pixels. */
+    private static final float ANTIALIAS_MARGIN = 1f;
+    private static final int PRESSED_ALPHA = 0x20;
+
+    public static enum LetterState {
+        Regular,
+        Success,
+        Error
+    }
+
+    private final Paint mDotPaint = new Paint();
+    private final Paint mLinePaint = new Paint();
+    private final Paint mPressedPaint = new Paint();
+    private final Rect mClipBounds = new Rect();
+
+    private final int mColumns;
+    /** Cell size asked for when the parent leaves the width open, e.g. when scrolling. */
+    private final int mDefaultCellSize;
+    private final float mCellPadding;
+    private final int mRegularColor;
+    private final int mSuccessColor;
+    private final int mErrorColor;
+
+    private final ArrayList<Letter> mLetters = new ArrayList<>();
+    private LetterState[] mStates = new LetterState[0];
+    /** Per letter: its points and its segments in cell coordinates, in pixels. */
+    private float[][] mPointCoords = new float[0][];
+    private float[][] mLineCoords = new float[0][];
+    /** Cell size the coordinates were computed for; 0 when they are stale. */
+    private float mGeometryCellSize;
+
+    private float mCellSize;
+    private int mPressedIndex = -1;
+    private OnLetterClickListener mLetterClickListener;
+
+    public AlphabetBoardView(Context context) {
+        this(context, null, 0);
+    }
+
+    public AlphabetBoardView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public AlphabetBoardView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.AlphabetBoardView);
+        mColumns = Math.max(1, a.getInt(R.styleable.AlphabetBoardView_columns, DEFAULT_COLUMNS));
+        mCellPadding = a.getDimension(R.styleable.AlphabetBoardView_cellPadding, 0f);
+        mRegularColor = a.getColor(R.styleable.AlphabetBoardView_regularColor,
+                getResources().getColor(R.color.lock_pattern_view_regular_color));
+        mSuccessColor = a.getColor(R.styleable.AlphabetBoardView_successColor,
+                getResources().getColor(R.color.lock_pattern_view_success_color));
+        mErrorColor = a.getColor(R.styleable.AlphabetBoardView_errorColor,
+                getResources().getColor(R.color.lock_pattern_view_error_color));
+        a.recycle();
+        mDefaultCellSize =
+                getResources().getDimensionPixelSize(R.dimen.alphabet_board_cell_size);
+
+        setClickable(true);
+
+        // Round caps turn drawPoints into dots, so a letter's dots are one draw call.
+        mDotPaint.setAntiAlias(true);
+        mDotPaint.setStyle(Paint.Style.STROKE);
+        mDotPaint.setStrokeCap(Paint.Cap.ROUND);
+
+        mLinePaint.setAntiAlias(true);
+        mLinePaint.setStyle(Paint.Style.STROKE);
+        mLinePaint.setStrokeCap(Paint.Cap.ROUND);
+
+        mPressedPaint.setColor(mRegularColor);
+        mPressedPaint.setAlpha(PRESSED_ALPHA);
+    }
+
+    /**
+     * Shows the given letters, in order, all in {@link LetterState#Regular}. The letters
+     * must not be modified while shown.
+     */
+    public void setLetters(List<Letter> letters) {
+        final int count = letters.size();
+        mLetters.clear();
+        mLetters.addAll(letters);
+        mStates = new LetterState[count];
+        for (int i = 0; i < count; i++) {
+            mStates[i] = LetterState.Regular;
+        }
+        mPointCoords = new float[count][];
+        mLineCoords = new float[count][];
+        mGeometryCellSize = 0f;
+        mPressedIndex = -1;
+        requestLayout();
+        invalidate();
+    }
+
+    public int getLetterCount() {
+        return mLetters.size();
+    }
+
+    public Letter getLetter(int index) {
+        return mLetters.get(index);
+    }
+
+    public LetterState getLetterState(int index) {
+        return mStates[index];
+    }
+
+    /**
+     * Changes how one letter is colored; only its cell is redrawn.
+     */
+    public void setLetterState(int index, LetterState state) {
+        if (mStates[index] != state) {
+            mStates[index] = state;
+            invalidateCell(index);
+        }
+    }
+
+    public void setOnLetterClickListener(OnLetterClickListener listener) {
+        mLetterClickListener = listener;
+    }
+
+    /**
+     * Index of the letter drawn at the given view position, or -1.
+     */
+    public int getLetterIndexAt(float x, float y) {
+        if (mCellSize <= 0f) {
+            return -1;
+        }
+        final float left = x - getPaddingLeft();
+        final float top = y - getPaddingTop();
+        if (left < 0f || top < 0f) {
+            return -1;
+        }
+        final int column = (int) (left / mCellSize);
+        final int row = (int) (top / mCellSize);
+        if (column >= mColumns) {
+            return -1;
+        }
+        final int index = row * mColumns + column;
+        return index < mLetters.size() ? index : -1;
+    }
+
+    private int getRowCount() {
+        return (mLetters.size() + mColumns - 1) / mColumns;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        final int horizontalPadding = getPaddingLeft() + getPaddingRight();
+        final int width = resolveSize(mDefaultCellSize * mColumns + horizontalPadding,
+                widthMeasureSpec);
+        final float cellSize = Math.max(0f, (float) (width - horizontalPadding) / mColumns);
+        final int desiredHeight = (int) Math.ceil(getRowCount() * cellSize)
+                + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(width, resolveSize(desiredHeight, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        mCellSize = Math.max(0f, (float) (w - getPaddingLeft() - getPaddingRight()) / mColumns);
+    }
+
+    /**
+     * Brings the cached coordinates up to the current cell size. Only a size change
+     * or new letters cost a pass over the points; frames reuse the arrays. Points are
+     * inset by half a dot, so round dots and caps stay inside the cell even without
+     * padding; redrawing a single cell then never clips a neighbour or leaves pixels.
+     */
+    private void updateGeometry() {
+        if (mGeometryCellSize == mCellSize) {
+            return;
+        }
+        mGeometryCellSize = mCellSize;
+        final float drawable = Math.max(0f, mCellSize - 2f * mCellPadding);
+        final float dotSize = Math.max(1f, drawable * DOT_SIZE_FRACTION);
+        mDotPaint.setStrokeWidth(dotSize);
+        mLinePaint.setStrokeWidth(Math.max(1f, drawable * LINE_WIDTH_FRACTION));
+        // Lines are thinner than dots, so the dots decide the inset.
+        final float inset = mCellPadding + dotSize / 2f + ANTIALIAS_MARGIN;
+        final float inner = Math.max(0f, mCellSize - 2f * inset);
+
+        for (int i = 0; i < mLetters.size(); i++) {
+            final Letter letter = mLetters.get(i);
+            final int count = letter.size();
+            float[] points = mPointCoords[i];
+            if (points == null || points.length != count * 2) {
+                points = mPointCoords[i] = new float[count * 2];
+            }
+            for (int p = 0; p < count; p++) {
+                points[p * 2] = inset + letter.getX(p) * inner;
+                points[p * 2 + 1] = inset + letter.getY(p) * inner;
+            }
+
+            final int segments = Math.max(0, count - 1);
+            float[] lines = mLineCoords[i];
+            if (lines == null || lines.length != segments * 4) {
+                lines = mLineCoords[i] = new float[segments * 4];
+            }
+            for (int s = 0; s < segments; s++) {
+                System.arraycopy(points, s * 2, lines, s * 4, 4);
+            }
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        final int count = mLetters.size();
+        if (count == 0 || mCellSize <= 0f) {
+            return;
+        }
+        updateGeometry();
+
+        // Only the cells inside the clip; a single letter's change clips to its cell.
+        int firstRow = 0;
+        int lastRow = getRowCount() - 1;
+        int firstColumn = 0;
+        int lastColumn = mColumns - 1;
+        if (canvas.getClipBounds(mClipBounds)) {
+            firstRow = Math.max(firstRow, (int) ((mClipBounds.top - getPaddingTop()) / mCellSize));
+            lastRow = Math.min(lastRow, (int) ((mClipBounds.bottom - getPaddingTop()) / mCellSize));
+            firstColumn = Math.max(firstColumn,
+                    (int) ((mClipBounds.left - getPaddingLeft()) / mCellSize));
+            lastColumn = Math.min(lastColumn,
+                    (int) ((mClipBounds.right - getPaddingLeft()) / mCellSize));
+        }
+
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                final int index = row * mColumns + column;
+                if (index >= count) {
+                    break;
+                }
+                final float left = getPaddingLeft() + column * mCellSize;
+                final float top = getPaddingTop() + row * mCellSize;
+                canvas.translate(left, top);
+                drawLetter(canvas, index);
+                canvas.translate(-left, -top);
+            }
+        }
+    }
+
+    private void drawLetter(Canvas canvas, int index) {
+        if (index == mPressedIndex) {
+            canvas.drawRect(0f, 0f, mCellSize, mCellSize, mPressedPaint);
+        }
+        final int color = getColor(mStates[index]);
+        final float[] lines = mLineCoords[index];
+        if (lines.length > 0) {
+            mLinePaint.setColor(color);
+            canvas.drawLines(lines, 0, lines.length, mLinePaint);
+        }
+        final float[] points = mPointCoords[index];
+        if (points.length > 0) {
+            mDotPaint.setColor(color);
+            canvas.drawPoints(points, 0, points.length, mDotPaint);
+        }
+    }
+
+    private int getColor(LetterState state) {
+        switch (state) {
+            case Success:
+                return mSuccessColor;
+            case Error:
+                return mErrorColor;
+            case Regular:
+            default:
+                return mRegularColor;
+        }
+    }
+
+    private void invalidateCell(int index) {
+        if (index < 0 || mCellSize <= 0f) {
+            return;
+        }
+        final float left = getPaddingLeft() + (index % mColumns) * mCellSize;
+        final float top = getPaddingTop() + (index / mColumns) * mCellSize;
+        invalidate((int) Math.floor(left), (int) Math.floor(top),
+                (int) Math.ceil(left + mCellSize), (int) Math.ceil(top + mCellSize));
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!isEnabled()) {
+            return false;
+        }
+        switch (event.getAction()) {
+            case MotionEvent.ACTION_DOWN:
+                setPressedIndex(getLetterIndexAt(event.getX(), event.getY()));
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                if (mPressedIndex >= 0
+                        && getLetterIndexAt(event.getX(), event.getY()) != mPressedIndex) {
+                    setPressedIndex(-1);
+                }
+                return true;
+            case MotionEvent.ACTION_UP:
+                final int index = mPressedIndex;
+                setPressedIndex(-1);
+                if (index >= 0) {
+                    performClick();
+                    if (mLetterClickListener != null) {
+                        mLetterClickListener.onLetterClick(index, mLetters.get(index));
+                    }
+                }
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                setPressedIndex(-1);
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Taps on a letter come through here too, so accessibility services and a plain
+     * click listener see them; the letter itself goes to the {@link OnLetterClickListener}.
+     */
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    private void setPressedIndex(int index) {
+        if (index != mPressedIndex) {
+            invalidateCell(mPressedIndex);
+            mPressedIndex = index;
+            invalidateCell(index);
+        }
+    }
+
+    public static interface OnLetterClickListener {
+        void onLetterClick(int index, Letter letter);
+    }
+}
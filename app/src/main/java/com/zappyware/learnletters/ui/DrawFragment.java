@@ -9,10 +9,7 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import com.zappyware.learnletters.R;
-import com.zappyware.learnletters.entities.Point;
-
-import java.util.ArrayList;
-import java.util.List;
+import com.zappyware.learnletters.entities.Letter;
 
 
 /**
@@ -77,15 +74,15 @@ public class DrawFragment extends Fragment {
     public void onViewCreated(View view, Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
 
-        ArrayList<Point> points = new ArrayList<>();
-        points.add(Point.of(.1f, .9f));
-        points.add(Point.of(.5f, .1f));
-        points.add(Point.of(.9f, .9f));
-        points.add(Point.of(.2f, .6f));
-        points.add(Point.of(.7f, .6f));
+        Letter letter = new Letter();
+        letter.add(.1f, .9f);
+        letter.add(.5f, .1f);
+        letter.add(.9f, .9f);
+        letter.add(.2f, .6f);
+        letter.add(.7f, .6f);
 
         LetterView lv = (LetterView) view.findViewById(R.id.letter_view);
-        lv.setPattern(LetterView.DisplayMode.Correct, points);
+        lv.setPattern(LetterView.DisplayMode.Correct, letter);
     }
 
     // TODO: Rename method, update argument and hook method into UI event
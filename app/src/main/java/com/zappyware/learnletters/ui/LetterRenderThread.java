@@ -0,0 +1,185 @@
+package com.zappyware.learnletters.ui;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.graphics.SurfaceTexture;
+import android.os.Process;
+import android.view.TextureView;
+
+import com.zappyware.learnletters.concurrent.SpscEventQueue;
+import com.zappyware.learnletters.concurrent.TripleBuffer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Draws {@link RenderSnapshot}s published by a {@link LetterView} into a
+ * {@link TextureView} on its own thread. The view and the thread exchange snapshots
+ * through a {@link TripleBuffer}, so neither touch handling nor drawing ever waits for
+ * the other; the thread sleeps until a snapshot arrives. How long each frame took to
+ * draw travels back to the view the same way, through a {@link SpscEventQueue}.
+ */
+final class LetterRenderThread extends Thread implements TextureView.SurfaceTextureListener {
+
+    /** Types of the draw events; the event time is the draw duration in nanoseconds. */
+    static final int DRAW_FULL = 0;
+    static final int DRAW_PARTIAL = 1;
+    /** Frames the view may fall behind on before their timings are dropped. */
+    private static final int DRAW_EVENT_CAPACITY = 64;
+
+    private final TextureView mSurface;
+    private final LetterRenderer mRenderer;
+    private final TripleBuffer<RenderSnapshot> mSnapshots = new TripleBuffer<>(
+            new RenderSnapshot(), new RenderSnapshot(), new RenderSnapshot());
+
+    /** Held while drawing, so the surface is not destroyed under the thread. */
+    private final Object mSurfaceLock = new Object();
+    private final Rect mDirty = new Rect();
+    private final SpscEventQueue mDrawEvents = new SpscEventQueue(DRAW_EVENT_CAPACITY);
+
+    private volatile boolean mRunning = true;
+    private volatile boolean mSurfaceAvailable;
+    /** Set when the surface contents are gone and the next frame must be drawn whole. */
+    private final AtomicBoolean mRedrawAll = new AtomicBoolean(true);
+
+    LetterRenderThread(TextureView surface, float pathWidth) {
+        super("LetterRender");
+        mSurface = surface;
+        mRenderer = new LetterRenderer(pathWidth);
+        surface.setOpaque(false);
+        surface.setSurfaceTextureListener(this);
+        mSurfaceAvailable = surface.isAvailable();
+    }
+
+    /**
+     * UI thread: the snapshot to fill before {@link #publish()}.
+     */
+    RenderSnapshot getBackSnapshot() {
+        return mSnapshots.getBack();
+    }
+
+    /**
+     * UI thread: whether the last published snapshot has not been drawn yet. Its dirty
+     * region must then be carried into the next one.
+     */
+    boolean hasUndrawnSnapshot() {
+        return mSnapshots.hasUnread();
+    }
+
+    /**
+     * UI thread: hands the filled snapshot over and wakes the thread.
+     */
+    void publish() {
+        mSnapshots.publish();
+        LockSupport.unpark(this);
+    }
+
+    /**
+     * UI thread: passes the timings of the frames drawn since the last call to
+     * {@code sink}, as {@link #DRAW_FULL} or {@link #DRAW_PARTIAL} events.
+     */
+    int drainDrawEvents(SpscEventQueue.EventSink sink) {
+        return mDrawEvents.drain(sink, DRAW_EVENT_CAPACITY);
+    }
+
+    /**
+     * UI thread: stops the thread and clears the surface, so the last frame does not
+     * stay on screen once the view draws itself again. Waits for a frame being drawn to
+     * finish, since the surface is no longer guarded by the destroy callback afterwards.
+     */
+    void quit() {
+        mRunning = false;
+        mSurface.setSurfaceTextureListener(null);
+        synchronized (mSurfaceLock) {
+            if (mSurfaceAvailable) {
+                final Canvas canvas = mSurface.lockCanvas();
+                if (canvas != null) {
+                    canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+                    mSurface.unlockCanvasAndPost(canvas);
+                }
+            }
+            mSurfaceAvailable = false;
+        }
+        LockSupport.unpark(this);
+    }
+
+    @Override
+    public void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_DISPLAY);
+        boolean hasSnapshot = false;
+        boolean undrawn = false;
+        while (mRunning) {
+            if (mSnapshots.take()) {
+                hasSnapshot = true;
+                undrawn = true;
+            }
+            // A new surface needs the last snapshot again, even if nothing changed.
+            if (!hasSnapshot || !mSurfaceAvailable || !(undrawn || mRedrawAll.get())) {
+                LockSupport.park(this);
+                continue;
+            }
+            undrawn = false;
+            final boolean drawn;
+            synchronized (mSurfaceLock) {
+                drawn = mSurfaceAvailable && draw(mSnapshots.getFront());
+            }
+            if (!drawn) {
+                // The surface is not ready; try again with the next snapshot.
+                LockSupport.park(this);
+            }
+        }
+        mRenderer.release();
+    }
+
+    private boolean draw(RenderSnapshot snapshot) {
+        final Canvas canvas;
+        final boolean full = mRedrawAll.getAndSet(false) || snapshot.dirtyFull;
+        if (full) {
+            canvas = mSurface.lockCanvas();
+        } else {
+            mDirty.set(snapshot.dirtyLeft, snapshot.dirtyTop,
+                    snapshot.dirtyRight, snapshot.dirtyBottom);
+            canvas = mSurface.lockCanvas(mDirty);
+        }
+        if (canvas == null) {
+            mRedrawAll.set(true);
+            return false;
+        }
+        final long start = System.nanoTime();
+        try {
+            mRenderer.draw(canvas, snapshot);
+        } finally {
+            mSurface.unlockCanvasAndPost(canvas);
+        }
+        mDrawEvents.offer(full ? DRAW_FULL : DRAW_PARTIAL, 0f, 0f, System.nanoTime() - start, 0);
+        return true;
+    }
+
+    @Override
+    public void onSurfaceTextureAvailable(SurfaceTexture surface, int width, int height) {
+        mRedrawAll.set(true);
+        mSurfaceAvailable = true;
+        LockSupport.unpark(this);
+    }
+
+    @Override
+    public void onSurfaceTextureSizeChanged(SurfaceTexture surface, int width, int height) {
+        mRedrawAll.set(true);
+        LockSupport.unpark(this);
+    }
+
+    @Override
+    public boolean onSurfaceTextureDestroyed(SurfaceTexture surface) {
+        synchronized (mSurfaceLock) {
+            mSurfaceAvailable = false;
+            mRedrawAll.set(true);
+        }
+        return true;
+    }
+
+    @Override
+    public void onSurfaceTextureUpdated(SurfaceTexture surface) {
+    }
+}
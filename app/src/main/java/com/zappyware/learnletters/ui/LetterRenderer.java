@@ -0,0 +1,136 @@
+package com.zappyware.learnletters.ui;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.PorterDuff;
+
+/**
+ * Draws a {@link RenderSnapshot} the way {@link LetterView#onDraw} draws its live
+ * state, including its static layer: settled cells and the finished stroke are drawn
+ * into a bitmap once per {@link RenderSnapshot#staticGeneration} and blitted on every
+ * other frame. Owned by a single thread; call {@link #release()} when done.
+ */
+final class LetterRenderer {
+
+    private final Paint mDrawPaint = new Paint();
+    private final Paint mPathPaint = new Paint();
+    private final Path mPath = new Path();
+
+    private Bitmap mStaticLayer;
+    private final Canvas mStaticLayerCanvas = new Canvas();
+    private boolean mStaticLayerValid;
+    private int mStaticLayerGeneration;
+
+    LetterRenderer(float pathWidth) {
+        mDrawPaint.setAntiAlias(true);
+        mDrawPaint.setDither(true);
+
+        mPathPaint.setAntiAlias(true);
+        mPathPaint.setDither(true);
+        mPathPaint.setStyle(Paint.Style.STROKE);
+        mPathPaint.setStrokeJoin(Paint.Join.ROUND);
+        mPathPaint.setStrokeCap(Paint.Cap.ROUND);
+        mPathPaint.setStrokeWidth(pathWidth);
+    }
+
+    void draw(Canvas canvas, RenderSnapshot s) {
+        canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+
+        // Same layering as LetterView: the static layer, then the animating cells and
+        // lines on top.
+        drawStaticLayer(canvas, s);
+
+        for (int i = 0; i < s.patternSize; i++) {
+            final int cell = s.pattern[i];
+            if (s.cellAnimating[cell]) {
+                drawCell(canvas, s, cell);
+            }
+        }
+
+        if (s.drawPath) {
+            mPathPaint.setColor(s.patternColor);
+            for (int i = s.strokeCellCount; i < s.patternSize; i++) {
+                final int cell = s.pattern[i];
+                if (s.lineStartXs[cell] != 0f && s.lineStartYs[cell] != 0f) {
+                    canvas.drawLine(s.lineStartXs[cell], s.lineStartYs[cell],
+                            s.lineEndXs[cell], s.lineEndYs[cell], mPathPaint);
+                }
+            }
+
+            if (s.drawInProgress) {
+                mPathPaint.setAlpha((int) (s.inProgressAlpha * 255f));
+                canvas.drawLine(s.inProgressFromX, s.inProgressFromY,
+                        s.inProgressToX, s.inProgressToY, mPathPaint);
+            }
+        }
+    }
+
+    /**
+     * Frees the static layer. Drawing again recreates it.
+     */
+    void release() {
+        if (mStaticLayer != null) {
+            mStaticLayerCanvas.setBitmap(null);
+            mStaticLayer.recycle();
+            mStaticLayer = null;
+        }
+        mStaticLayerValid = false;
+    }
+
+    private void drawStaticLayer(Canvas canvas, RenderSnapshot s) {
+        final int width = canvas.getWidth();
+        final int height = canvas.getHeight();
+        if (width == 0 || height == 0) {
+            return;
+        }
+        if (mStaticLayer == null || mStaticLayer.getWidth() != width
+                || mStaticLayer.getHeight() != height) {
+            release();
+            mStaticLayer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            mStaticLayerCanvas.setBitmap(mStaticLayer);
+        }
+
+        if (!mStaticLayerValid || mStaticLayerGeneration != s.staticGeneration) {
+            mStaticLayerValid = true;
+            mStaticLayerGeneration = s.staticGeneration;
+            mStaticLayer.eraseColor(Color.TRANSPARENT);
+            drawSettled(mStaticLayerCanvas, s);
+        }
+
+        canvas.drawBitmap(mStaticLayer, 0, 0, null);
+    }
+
+    private void drawSettled(Canvas canvas, RenderSnapshot s) {
+        for (int i = 0; i < s.drawnCount; i++) {
+            final int cell = s.drawnCells[i];
+            if (!s.cellAnimating[cell]) {
+                drawCell(canvas, s, cell);
+            }
+        }
+
+        if (s.drawPath && s.strokeCellCount > 0) {
+            final Path path = mPath;
+            path.rewind();
+            for (int i = 0; i < s.strokeCellCount; i++) {
+                final int cell = s.pattern[i];
+                if (i == 0) {
+                    path.moveTo(s.cellXs[cell], s.cellYs[cell]);
+                } else {
+                    path.lineTo(s.cellXs[cell], s.cellYs[cell]);
+                }
+            }
+            mPathPaint.setColor(s.patternColor);
+            canvas.drawPath(path, mPathPaint);
+        }
+    }
+
+    private void drawCell(Canvas canvas, RenderSnapshot s, int cell) {
+        mDrawPaint.setColor(s.cellInPattern[cell] ? s.patternColor : s.regularColor);
+        mDrawPaint.setAlpha((int) (s.cellAlphas[cell] * 255));
+        canvas.drawCircle((int) s.cellXs[cell], (int) s.cellYs[cell] + s.cellTranslates[cell],
+                s.cellSizes[cell] / 2, mDrawPaint);
+    }
+}
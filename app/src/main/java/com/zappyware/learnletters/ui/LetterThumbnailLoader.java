@@ -0,0 +1,341 @@
+package com.zappyware.learnletters.ui;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.util.LruCache;
+import android.widget.ImageView;
+
+import com.zappyware.learnletters.entities.Letter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Small previews of letters for pickers and lists. Thumbnails are drawn on a worker
+ * thread and kept in an LRU cache bounded in bytes; bitmaps evicted while not shown
+ * are drawn into again instead of allocating new ones. Views asking for the same
+ * letter at the same size share one drawing, and a view that is bound again, e.g.
+ * after scrolling away, drops its earlier request.
+ *
+ * <p>Create and use it on the UI thread, and {@link #quit()} it when done. Letters
+ * are matched by identity and must not be modified once requested.
+ */
+public class LetterThumbnailLoader {
+
+    /** Margin around the letter, dot size and line width, as fractions of the size. */
+    private static final float PADDING_FRACTION = 0.1f;
+    private static final float DOT_SIZE_FRACTION = 0.06f;
+    private static final float LINE_WIDTH_FRACTION = 0.025f;
+
+    private static final int MAX_POOLED_BITMAPS = 8;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final HandlerThread mWorkerThread;
+    private final Handler mWorker;
+
+    private final LruCache<Key, Bitmap> mCache;
+    /** Evicted bitmaps not shown anywhere, ready to be drawn into. */
+    private final ArrayList<Bitmap> mPool = new ArrayList<>();
+    private final HashMap<Key, Request> mInFlight = new HashMap<>();
+    private final WeakHashMap<ImageView, Request> mWaiting = new WeakHashMap<>();
+    private final WeakHashMap<ImageView, Bitmap> mShown = new WeakHashMap<>();
+    /** Per bitmap in {@link #mShown}: how many views show it. */
+    private final WeakHashMap<Bitmap, Usage> mUsage = new WeakHashMap<>();
+    private boolean mQuit;
+
+    /** Owned by the worker thread. */
+    private final Paint mDotPaint = new Paint();
+    private final Paint mLinePaint = new Paint();
+    private final Canvas mCanvas = new Canvas();
+    private float[] mCoords = new float[0];
+
+    /**
+     * @param cacheBytes the most bytes of bitmaps to keep cached
+     * @param color      color of the dots and lines
+     */
+    public LetterThumbnailLoader(int cacheBytes, int color) {
+        mCache = new LruCache<Key, Bitmap>(cacheBytes) {
+            @Override
+            protected int sizeOf(Key key, Bitmap bitmap) {
+                return bitmap.getByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, Key key, Bitmap oldValue,
+                                        Bitmap newValue) {
+                if (evicted) {
+                    uncached(oldValue);
+                }
+            }
+        };
+
+        mDotPaint.setAntiAlias(true);
+        mDotPaint.setStyle(Paint.Style.STROKE);
+        mDotPaint.setStrokeCap(Paint.Cap.ROUND);
+        mDotPaint.setColor(color);
+
+        mLinePaint.setAntiAlias(true);
+        mLinePaint.setStyle(Paint.Style.STROKE);
+        mLinePaint.setStrokeCap(Paint.Cap.ROUND);
+        mLinePaint.setColor(color);
+
+        mWorkerThread = new HandlerThread("LetterThumbnails", Process.THREAD_PRIORITY_BACKGROUND);
+        mWorkerThread.start();
+        mWorker = new Handler(mWorkerThread.getLooper());
+    }
+
+    /**
+     * Shows the letter's thumbnail in the view, at once when it is cached, otherwise
+     * as soon as it is drawn. The view is cleared meanwhile. Both sizes, in pixels,
+     * must be positive.
+     */
+    public void load(Letter letter, int width, int height, ImageView view) {
+        if (mQuit) {
+            throw new IllegalStateException("loader has quit");
+        }
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("thumbnail size must be positive: "
+                    + width + "x" + height);
+        }
+        cancel(view);
+        final Key key = new Key(letter, width, height);
+        final Bitmap cached = mCache.get(key);
+        if (cached != null) {
+            show(view, cached);
+            return;
+        }
+        show(view, null);
+
+        Request request = mInFlight.get(key);
+        if (request == null) {
+            request = new Request(key);
+            mInFlight.put(key, request);
+            mWorker.post(request);
+        }
+        request.mTargetCount++;
+        mWaiting.put(view, request);
+    }
+
+    /**
+     * Drops the view's pending request. The drawing itself is cancelled when no other
+     * view waits for it.
+     */
+    public void cancel(ImageView view) {
+        final Request request = mWaiting.remove(view);
+        if (request != null && --request.mTargetCount == 0) {
+            request.mCancelled = true;
+            mWorker.removeCallbacks(request);
+            mInFlight.remove(request.mKey);
+        }
+    }
+
+    /**
+     * Stops the worker and empties the cache. Thumbnails already shown stay valid.
+     */
+    public void quit() {
+        mQuit = true;
+        mWorkerThread.quit();
+        mInFlight.clear();
+        mWaiting.clear();
+        mCache.evictAll();
+        synchronized (mPool) {
+            mPool.clear();
+        }
+    }
+
+    private void show(ImageView view, Bitmap bitmap) {
+        final Bitmap previous = bitmap != null ? mShown.put(view, bitmap) : mShown.remove(view);
+        view.setImageBitmap(bitmap);
+        if (previous == bitmap) {
+            return;
+        }
+        if (bitmap != null) {
+            Usage usage = mUsage.get(bitmap);
+            if (usage == null) {
+                usage = new Usage();
+                mUsage.put(bitmap, usage);
+            }
+            usage.mViews++;
+        }
+        if (previous != null) {
+            final Usage usage = mUsage.get(previous);
+            if (--usage.mViews == 0) {
+                mUsage.remove(previous);
+                if (usage.mUncached && !mQuit) {
+                    recycleToPool(previous);
+                }
+            }
+        }
+    }
+
+    /**
+     * A bitmap left the cache, or never entered it: it can be drawn into again as soon
+     * as no view shows it.
+     */
+    private void uncached(Bitmap bitmap) {
+        final Usage usage = mUsage.get(bitmap);
+        if (usage == null) {
+            recycleToPool(bitmap);
+        } else {
+            usage.mUncached = true;
+        }
+    }
+
+    /**
+     * UI thread: caches a finished thumbnail and shows it in the views still waiting.
+     */
+    private void deliver(Request request, Bitmap bitmap) {
+        if (mInFlight.get(request.mKey) == request) {
+            mInFlight.remove(request.mKey);
+        }
+        if (request.mCancelled || mQuit) {
+            recycleToPool(bitmap);
+            return;
+        }
+        // Shown first, so that evicting it right away cannot pool it under the views.
+        final Iterator<Map.Entry<ImageView, Request>> it = mWaiting.entrySet().iterator();
+        while (it.hasNext()) {
+            final Map.Entry<ImageView, Request> entry = it.next();
+            if (entry.getValue() == request) {
+                it.remove();
+                show(entry.getKey(), bitmap);
+            }
+        }
+        if (bitmap.getByteCount() <= mCache.maxSize()) {
+            mCache.put(request.mKey, bitmap);
+        } else {
+            uncached(bitmap);
+        }
+    }
+
+    private void recycleToPool(Bitmap bitmap) {
+        synchronized (mPool) {
+            if (mPool.size() < MAX_POOLED_BITMAPS) {
+                mPool.add(bitmap);
+            }
+        }
+    }
+
+    private Bitmap obtainBitmap(int width, int height) {
+        synchronized (mPool) {
+            for (int i = mPool.size() - 1; i >= 0; i--) {
+                final Bitmap bitmap = mPool.get(i);
+                if (bitmap.getWidth() == width && bitmap.getHeight() == height) {
+                    mPool.remove(i);
+                    bitmap.eraseColor(Color.TRANSPARENT);
+                    return bitmap;
+                }
+            }
+        }
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    /**
+     * Worker thread: draws the letter's segments and dots, scaled into the bitmap.
+     */
+    private void render(Letter letter, Bitmap bitmap) {
+        final int width = bitmap.getWidth();
+        final int height = bitmap.getHeight();
+        final float size = Math.min(width, height);
+        final float padding = size * PADDING_FRACTION;
+        final float innerWidth = width - 2f * padding;
+        final float innerHeight = height - 2f * padding;
+        mDotPaint.setStrokeWidth(Math.max(1f, size * DOT_SIZE_FRACTION));
+        mLinePaint.setStrokeWidth(Math.max(1f, size * LINE_WIDTH_FRACTION));
+
+        final int count = letter.size();
+        final int segments = Math.max(0, count - 1);
+        if (mCoords.length < Math.max(count * 2, segments * 4)) {
+            mCoords = new float[Math.max(count * 2, segments * 4)];
+        }
+        final float[] coords = mCoords;
+        final Canvas canvas = mCanvas;
+        canvas.setBitmap(bitmap);
+
+        for (int s = 0; s < segments; s++) {
+            coords[s * 4] = padding + letter.getX(s) * innerWidth;
+            coords[s * 4 + 1] = padding + letter.getY(s) * innerHeight;
+            coords[s * 4 + 2] = padding + letter.getX(s + 1) * innerWidth;
+            coords[s * 4 + 3] = padding + letter.getY(s + 1) * innerHeight;
+        }
+        if (segments > 0) {
+            canvas.drawLines(coords, 0, segments * 4, mLinePaint);
+        }
+
+        for (int p = 0; p < count; p++) {
+            coords[p * 2] = padding + letter.getX(p) * innerWidth;
+            coords[p * 2 + 1] = padding + letter.getY(p) * innerHeight;
+        }
+        if (count > 0) {
+            canvas.drawPoints(coords, 0, count * 2, mDotPaint);
+        }
+        canvas.setBitmap(null);
+    }
+
+    private final class Request implements Runnable {
+        final Key mKey;
+        /** UI thread: views waiting for this drawing. */
+        int mTargetCount;
+        volatile boolean mCancelled;
+
+        Request(Key key) {
+            mKey = key;
+        }
+
+        @Override
+        public void run() {
+            if (mCancelled) {
+                return;
+            }
+            final Bitmap bitmap = obtainBitmap(mKey.mWidth, mKey.mHeight);
+            render(mKey.mLetter, bitmap);
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    deliver(Request.this, bitmap);
+                }
+            });
+        }
+    }
+
+    private static final class Usage {
+        int mViews;
+        /** Whether the bitmap is out of the cache and goes to the pool once unused. */
+        boolean mUncached;
+    }
+
+    private static final class Key {
+        final Letter mLetter;
+        final int mWidth;
+        final int mHeight;
+
+        Key(Letter letter, int width, int height) {
+            mLetter = letter;
+            mWidth = width;
+            mHeight = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return mLetter == other.mLetter && mWidth == other.mWidth && mHeight == other.mHeight;
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(mLetter) * 31 + mWidth) * 31 + mHeight;
+        }
+    }
+}
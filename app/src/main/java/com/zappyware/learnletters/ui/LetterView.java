@@ -1,72 +1,163 @@
 package com.zappyware.learnletters.ui;
 
-import android.animation.Animator;
-import android.animation.AnimatorListenerAdapter;
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
 import android.graphics.Rect;
-import android.graphics.RectF;
-import android.os.Debug;
 import android.os.Parcel;
 import android.os.Parcelable;
-import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.view.HapticFeedbackConstants;
 import android.view.MotionEvent;
+import android.view.TextureView;
+import android.view.Choreographer;
 import android.view.View;
 import android.view.accessibility.AccessibilityManager;
-import android.view.animation.AnimationUtils;
-import android.view.animation.Interpolator;
 
 import com.zappyware.learnletters.R;
+import com.zappyware.learnletters.animation.Easing;
+import com.zappyware.learnletters.animation.PlaybackTimeline;
+import com.zappyware.learnletters.animation.TweenScheduler;
+import com.zappyware.learnletters.concurrent.SpscEventQueue;
 import com.zappyware.learnletters.entities.Letter;
+import com.zappyware.learnletters.entities.PatternSnapshot;
 import com.zappyware.learnletters.entities.Point;
+import com.zappyware.learnletters.entities.StrokeBuffer;
+import com.zappyware.learnletters.entities.StrokeSamples;
+import com.zappyware.learnletters.geometry.DirtyRegion;
+import com.zappyware.learnletters.geometry.DistanceField;
+import com.zappyware.learnletters.geometry.DistanceFieldCache;
+import com.zappyware.learnletters.geometry.LetterLod;
+import com.zappyware.learnletters.geometry.PointGridIndex;
+import com.zappyware.learnletters.geometry.StrokeFilter;
+import com.zappyware.learnletters.metrics.FrameMetrics;
+import com.zappyware.learnletters.recognition.StrokeRecognizer;
+import com.zappyware.learnletters.recognition.StrokeTemplate;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 
 
 public class LetterView extends View {
 
     private static final int MILLIS_PER_CIRCLE_ANIMATING = 700;
+    private static final long NANOS_PER_MILLI = 1000000L;
+    private static final long SIZE_GROW_NANOS = 96 * NANOS_PER_MILLI;
+    private static final long SIZE_SHRINK_NANOS = 192 * NANOS_PER_MILLI;
+    private static final long LINE_END_NANOS = 100 * NANOS_PER_MILLI;
+
+    private static final int TWEEN_SIZE = 0;
+    private static final int TWEEN_LINE_END = 1;
+    private static final int TWEENS_PER_CELL = 3;
+    private static final int STROKE_INITIAL_CAPACITY = 256;
+    private static final int STROKE_MAX_CAPACITY = 4096;
     private static final float DRAG_THRESHHOLD = 0.0f;
     private static final float DIVISION = 20.0f;
     private static final float HIT_FACTOR = 1.5f;
-    private static final boolean PROFILE_DRAWING = false;
+    private static final float HIT_SIZE_FACTOR = 4f;
+
+    /** Distance fields shared by all views; a few letters at a few sizes. */
+    private static final DistanceFieldCache DISTANCE_FIELDS = new DistanceFieldCache(8);
+    /** Extra pixels around dirty bounds for antialiasing. */
+    private static final float DIRTY_MARGIN = 2f;
 
     private final int mDotSize;
     private final int mDotSizeActivated;
+    /**
+     * How far, in pixels, a dot of a dense letter may be from a drawn one to be skipped:
+     * half a dot, so a skipped dot would be mostly covered by its neighbour anyway.
+     */
+    private final float mLodPixelRadius;
     private final int mPathWidth;
 
-    private boolean mDrawingProfilingStarted = false;
-
     private Aspect mAspect;
-    private DisplayMode mMode;
+    private DisplayMode mMode = DisplayMode.Correct;
+
+    private final AccessibilityManager mAccessibilityManager;
 
     private final Paint mDrawPaint = new Paint();
     private final Paint mPathPaint = new Paint();
 
-    private Letter mLetter;
-
-    private final ArrayList<Point> mPoints = new ArrayList<>();
-    private final HashMap<Point, CellState> mPointStates = new HashMap<>();
-    private final HashMap<Point, Boolean> mPatternDrawLookup = new HashMap<>();
+    private Letter mLetter = new Letter();
+    /**
+     * The letter's levels of detail, and the cells of the one drawn at the current size.
+     * Only drawing uses them; everything else works on all cells of mLetter.
+     */
+    private LetterLod mLod = LetterLod.of(mLetter);
+    private int[] mLodCells = mLod.getLevel(0);
+
+    private CellState[] mCellStates = new CellState[0];
+    private boolean[] mPatternDrawLookup = new boolean[0];
+    private int[] mPattern = new int[0];
+    private int mPatternSize;
+    private Point[] mCellPoints = new Point[0];
+    private final ArrayList<Point> mPatternPoints = new ArrayList<>();
+    /**
+     * Built on demand, so it can lag behind the pattern or be null; see
+     * getPatternSnapshot. Only cells the user drew count, not Animate mode playback.
+     */
+    private PatternSnapshot mPatternSnapshot;
+    private int mPatternSnapshotSize;
+    private final PointGridIndex mHitIndex = new PointGridIndex();
+    private int[] mSegmentHits = new int[0];
+    /** The previous touch sample, where the next swept hit test starts. */
+    private float mLastSampleX;
+    private float mLastSampleY;
+
+    private DistanceField mDistanceField;
+    /** Distance of the latest touch sample from the letter's polyline, in pixels. */
+    private float mDeviation;
 
     private OnPatternListener mPatternListener;
+    private OnPatternChangeListener mPatternChangeListener;
+    private boolean mCoalescePatternChanges;
+    /** Pattern index and stroke sample sequence from which changes are not reported yet. */
+    private int mPendingCellsFrom;
+    private long mPendingSamplesFrom;
+    private OnStrokeScoredListener mStrokeScoredListener;
+
+    private final FrameMetrics mMetrics = new FrameMetrics();
+    private final FrameMetrics mMetricsReport = new FrameMetrics();
+    private final Rect mClipBounds = new Rect();
+    private OnMetricsListener mMetricsListener;
+    private ScoringPipeline mScoringPipeline;
+    private long mMetricsIntervalNanos;
+    private long mMetricsLastReportNanos;
+
+    private final StrokeRecognizer mRecognizer = new StrokeRecognizer();
+    private StrokeTemplate mLetterTemplate;
+    private final StrokeBuffer mStroke =
+            new StrokeBuffer(STROKE_INITIAL_CAPACITY, STROKE_MAX_CAPACITY);
+    /** The filtered samples of the stroke, which it is scored on. */
+    private final StrokeBuffer mFilteredStroke =
+            new StrokeBuffer(STROKE_INITIAL_CAPACITY, STROKE_MAX_CAPACITY);
 
     private float mInProgressX;
     private float mInProgressY;
 
+    /**
+     * Smooths and evenly resamples move samples for hit testing, drawing and the
+     * scoring. mStroke keeps the raw samples.
+     */
+    private final StrokeFilter mStrokeFilter;
+    private final StrokeFilter.SampleSink mFilteredSamples = new StrokeFilter.SampleSink() {
+        @Override
+        public void onSample(float x, float y, long time) {
+            addFilteredSample(x, y, time);
+        }
+    };
+
     private float mSquareWidth;
     private float mSquareHeight;
 
-    private long mAnimatingPeriodStart;
+    private final PlaybackTimeline mPlayback = new PlaybackTimeline(MILLIS_PER_CIRCLE_ANIMATING);
+    private boolean mPlaybackRequested = true;
+    private boolean mAttached;
     private boolean mStealthMode;
 
     private boolean mInputEnabled = true;
@@ -75,15 +166,90 @@ public class LetterView extends View {
     private boolean mPatternInProgress = false;
 
     private final Path mCurrentPath = new Path();
-    private final Rect mInvalidate = new Rect();
-    private final Rect mTmpInvalidateRect = new Rect();
+    private final Path mStrokePath = new Path();
+    private int mStrokeCellCount;
+
+    private Bitmap mStaticLayer;
+    private final Canvas mStaticLayerCanvas = new Canvas();
+    private boolean mStaticLayerDirty = true;
+    /** Bumped whenever the static layer goes stale, so the render thread redraws its copy. */
+    private int mStaticLayerGeneration;
+    private final DirtyRegion mDirty = new DirtyRegion();
+    /** What changed since the render thread last drew, while it lags behind. */
+    private final DirtyRegion mRenderDirty = new DirtyRegion();
+    private TextureView mRenderSurface;
+    private LetterRenderThread mRenderThread;
+    private long mPendingTouchMillis = -1;
 
     private int mRegularColor;
     private int mErrorColor;
     private int mSuccessColor;
 
-    private Interpolator mFastOutSlowInInterpolator;
-    private Interpolator mLinearOutSlowInInterpolator;
+    private final TweenScheduler mTweens = new TweenScheduler(new TweenScheduler.Listener() {
+        @Override
+        public void onTweenUpdate(int cell, int property, float value) {
+            final CellState state = mCellStates[cell];
+            if (property == TWEEN_SIZE) {
+                state.size = value;
+                dirtyCell(cell);
+            } else {
+                // Cover the line where it was and where it is now.
+                dirtyCellSegment(state);
+                state.lineEndX = (1 - value) * state.lineTweenStartX
+                        + value * getCenterXForColumn(mLetter.getX(cell));
+                state.lineEndY = (1 - value) * state.lineTweenStartY
+                        + value * getCenterYForRow(mLetter.getY(cell));
+                dirtyCellSegment(state);
+            }
+        }
+
+        @Override
+        public void onTweenEnd(int cell, int property) {
+            final CellState state = mCellStates[cell];
+            if (property == TWEEN_SIZE) {
+                if (--state.sizeTweens == 0) {
+                    invalidateStaticLayer();
+                }
+            } else {
+                state.lineAnimating = false;
+                appendConfirmedSegments();
+            }
+        }
+    });
+
+    private boolean mFramePosted;
+    private boolean mFrameDelayed;
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mFramePosted = false;
+            if (mTweens.advance(frameTimeNanos)) {
+                scheduleFrame();
+            }
+            mMetrics.setAnimators(mTweens.getActiveCount());
+            deliverCellsAdded();
+            if (mMode == DisplayMode.Animate) {
+                applyPlaybackPosition();
+            }
+            flushDirtyRegion();
+            if (mRenderThread != null && drainRenderMetrics() > 0) {
+                reportMetrics(System.nanoTime());
+            }
+        }
+    };
+
+    /** Records the frames drawn by the render thread, which cannot touch mMetrics. */
+    private final SpscEventQueue.EventSink mRenderMetricsSink = new SpscEventQueue.EventSink() {
+        @Override
+        public void onEvent(int type, float x, float y, long time, int arg) {
+            if (type == LetterRenderThread.DRAW_FULL) {
+                mMetrics.fullRedraws++;
+            } else {
+                mMetrics.partialRedraws++;
+            }
+            mMetrics.drawNanos.record(time);
+        }
+    };
 
     public LetterView(Context context) {
         this(context, null, 0);
@@ -103,6 +269,9 @@ public class LetterView extends View {
 
         setClickable(true);
 
+        mAccessibilityManager =
+                (AccessibilityManager) context.getSystemService(Context.ACCESSIBILITY_SERVICE);
+
         mPathPaint.setAntiAlias(true);
         mPathPaint.setDither(true);
 
@@ -126,14 +295,13 @@ public class LetterView extends View {
         mDotSize = getResources().getDimensionPixelSize(R.dimen.lock_pattern_dot_size);
         mDotSizeActivated = getResources().getDimensionPixelSize(
                 R.dimen.lock_pattern_dot_size_activated);
+        mLodPixelRadius = Math.max(1f, mDotSize * 0.5f);
 
         mDrawPaint.setAntiAlias(true);
         mDrawPaint.setDither(true);
 
-        mFastOutSlowInInterpolator =
-                AnimationUtils.loadInterpolator(context, android.R.interpolator.fast_out_slow_in);
-        mLinearOutSlowInInterpolator =
-                AnimationUtils.loadInterpolator(context, android.R.interpolator.linear_out_slow_in);
+        mStrokeFilter = new StrokeFilter(getResources().getDimension(
+                R.dimen.letter_stroke_sample_spacing));
     }
 
     public OnPatternListener getOnPatternListener() {
@@ -144,8 +312,137 @@ public class LetterView extends View {
         mPatternListener = l;
     }
 
-    public HashMap<Point, CellState> getCellStates() {
-        return mPointStates;
+    /**
+     * Sets a listener that gets each change of the pattern as a delta, together with
+     * an immutable snapshot of the whole pattern. With {@code coalescePerFrame}, the
+     * cells added during one frame arrive in a single call.
+     */
+    public void setOnPatternChangeListener(OnPatternChangeListener l, boolean coalescePerFrame) {
+        deliverCellsAdded();
+        mPatternChangeListener = l;
+        mCoalescePatternChanges = coalescePerFrame;
+    }
+
+    /**
+     * The pattern drawn so far by the user. The snapshot does not change when the
+     * pattern does; ask again for the current one.
+     */
+    public PatternSnapshot getPatternSnapshot() {
+        PatternSnapshot snapshot = mPatternSnapshot;
+        if (snapshot == null) {
+            // Room for every cell of the letter, so appending never copies.
+            snapshot = PatternSnapshot.empty(mLetter, mLetter.size());
+        }
+        for (int i = snapshot.size(); i < mPatternSnapshotSize; i++) {
+            snapshot = snapshot.append(mPattern[i]);
+        }
+        mPatternSnapshot = snapshot;
+        return snapshot;
+    }
+
+    public OnStrokeScoredListener getOnStrokeScoredListener() {
+        return mStrokeScoredListener;
+    }
+
+    /**
+     * Raw samples of the current or last stroke in view pixels, oldest first, as the
+     * touch events reported them. Hit testing and the drawn line use a smoothed copy
+     * instead; see {@link #setStrokeFilterEnabled}. The returned view is live and
+     * read-only; it changes with the next touch event.
+     */
+    public StrokeSamples getStrokeSamples() {
+        return mStroke;
+    }
+
+    /**
+     * Sets a listener that gets how closely each finished stroke followed the letter.
+     */
+    public void setOnStrokeScoredListener(OnStrokeScoredListener l) {
+        mStrokeScoredListener = l;
+    }
+
+    /**
+     * Sets a listener that gets the drawing and input metrics about every
+     * {@code intervalMillis}, after a frame is drawn. The metrics are reset after each
+     * report.
+     */
+    public void setOnMetricsListener(OnMetricsListener l, long intervalMillis) {
+        mMetricsListener = l;
+        mMetricsIntervalNanos = intervalMillis * NANOS_PER_MILLI;
+        mMetricsLastReportNanos = System.nanoTime();
+    }
+
+    /**
+     * Copies the metrics recorded since the last reset into {@code out}.
+     */
+    public void getMetrics(FrameMetrics out) {
+        drainRenderMetrics();
+        mMetrics.copyTo(out);
+    }
+
+    public void resetMetrics() {
+        drainRenderMetrics();
+        mMetrics.reset();
+    }
+
+    /**
+     * Streams the strokes drawn on this view into {@code pipeline}, which grades them
+     * off the UI thread. The caller owns the pipeline and quits it. Pass null to stop.
+     */
+    public void setScoringPipeline(ScoringPipeline pipeline) {
+        mScoringPipeline = pipeline;
+        if (pipeline != null) {
+            pipeline.setLetter(mLetter);
+        }
+    }
+
+    /**
+     * Draws the view on a dedicated render thread into {@code surface} instead of in
+     * onDraw, so work on the UI thread cannot make the stroke stutter. The surface
+     * should cover this view exactly, e.g. as a sibling in the same FrameLayout, and
+     * needs a hardware accelerated window; this view keeps handling touches. Pass null
+     * to draw in onDraw again.
+     */
+    public void setRenderSurface(TextureView surface) {
+        if (surface == mRenderSurface) {
+            return;
+        }
+        stopRenderThread();
+        mRenderSurface = surface;
+        if (mAttached) {
+            startRenderThread();
+        }
+        invalidateStaticLayer();
+        mDirty.addAll();
+        scheduleFrame();
+        // Clears or restores what onDraw shows.
+        invalidate();
+    }
+
+    public TextureView getRenderSurface() {
+        return mRenderSurface;
+    }
+
+    private void startRenderThread() {
+        if (mRenderSurface != null && mRenderThread == null) {
+            mRenderThread = new LetterRenderThread(mRenderSurface, mPathWidth);
+            mRenderThread.start();
+            mRenderDirty.addAll();
+            mDirty.addAll();
+            scheduleFrame();
+        }
+    }
+
+    private void stopRenderThread() {
+        if (mRenderThread != null) {
+            mRenderThread.quit();
+            drainRenderMetrics();
+            mRenderThread = null;
+        }
+    }
+
+    public CellState[] getCellStates() {
+        return mCellStates;
     }
     
     public boolean isInStealthMode() {
@@ -158,24 +455,73 @@ public class LetterView extends View {
     
     public void setInStealthMode(boolean inStealthMode) {
         mInStealthMode = inStealthMode;
+        invalidateStaticLayer();
+        mDirty.addAll();
+        scheduleFrame();
     }
 
     public void setTactileFeedbackEnabled(boolean tactileFeedbackEnabled) {
         mEnableHapticFeedback = tactileFeedbackEnabled;
     }
 
+    /**
+     * Whether touch samples are smoothed and evenly resampled before hit testing,
+     * drawing and scoring. Enabled by default.
+     */
+    public void setStrokeFilterEnabled(boolean enabled) {
+        mStrokeFilter.setEnabled(enabled);
+    }
+
     public void setPattern(DisplayMode displayMode, List<Point> points) {
-        mPoints.clear();
-        mPoints.addAll(points);
+        setPattern(displayMode, Letter.of(points));
+    }
+
+    /**
+     * Shows the letter. The dots of a dense letter are drawn at a level of detail
+     * chosen by the view's size, but all of them can be hit. The letter must not change
+     * afterwards; pattern snapshots make it read-only.
+     */
+    public void setPattern(DisplayMode displayMode, Letter letter) {
+        mTweens.cancelAll();
+        mLetter = letter;
+
+        final int count = letter.size();
+        if (mCellStates.length < count) {
+            mCellStates = new CellState[count];
+            mCellPoints = new Point[count];
+            mPatternDrawLookup = new boolean[count];
+            mPattern = new int[count];
+        }
+        mLod = LetterLod.of(letter);
+        updateLodLevel();
+        mPatternSize = 0;
+        mPatternPoints.clear();
+        resetPatternSnapshot();
+
+        // Everything the touch path needs is allocated here, so adding cells does not
+        // allocate: the listener Points, the list holding them and the tween slots. The
+        // pattern snapshot is only extended for a change listener or when asked for.
+        mPatternPoints.ensureCapacity(count);
+        mTweens.ensureCapacity(count * TWEENS_PER_CELL);
 
         clearPatternDrawLookup();
+        rebuildStrokePath();
 
         CellState state;
-        for (Point point : points) {
+        for (int i = 0; i < count; i++) {
             state = new CellState();
             state.size = mDotSize;
 
-            mPointStates.put(point, state);
+            mCellStates[i] = state;
+            mCellPoints[i] = letter.getPoint(i);
+        }
+        rebuildHitIndex();
+        rebuildDistanceField();
+        mLetterTemplate = count > 0
+                ? StrokeTemplate.of(null, letter, mRecognizer.getSampleCount())
+                : null;
+        if (mScoringPipeline != null) {
+            mScoringPipeline.setLetter(letter);
         }
 
         setDisplayMode(displayMode);
@@ -184,22 +530,144 @@ public class LetterView extends View {
     public void setDisplayMode(DisplayMode displayMode) {
         mMode = displayMode;
         if (displayMode == DisplayMode.Animate) {
-            if (mPoints.size() == 0) {
+            if (mLetter.size() == 0) {
                 throw new IllegalStateException("you must have a pattern to "
                         + "animate if you want to set the display mode to animate");
             }
-            mAnimatingPeriodStart = SystemClock.elapsedRealtime();
-            final Point first = mPoints.get(0);
-            mInProgressX = getCenterXForColumn(first.x);
-            mInProgressY = getCenterYForRow(first.y);
+            mPlayback.reset(mLetter.size(), System.nanoTime());
+            mInProgressX = getCenterXForColumn(mLetter.getX(0));
+            mInProgressY = getCenterYForRow(mLetter.getY(0));
+            mPatternSize = 0;
             clearPatternDrawLookup();
+            rebuildStrokePath();
+            resetPatternSnapshot();
+        }
+        updatePlaybackState();
+        invalidateStaticLayer();
+        mDirty.addAll();
+        scheduleFrame();
+    }
+
+    public void playAnimation() {
+        mPlaybackRequested = true;
+        updatePlaybackState();
+    }
+
+    public void pauseAnimation() {
+        mPlaybackRequested = false;
+        updatePlaybackState();
+    }
+
+    /**
+     * Whether {@link DisplayMode#Animate} is currently advancing. This is false while
+     * paused and also while the view is detached or not shown.
+     */
+    public boolean isAnimationPlaying() {
+        return mPlayback.isPlaying();
+    }
+
+    public void seekAnimation(long positionMillis) {
+        mPlayback.seek(positionMillis, System.nanoTime());
+        scheduleFrame();
+    }
+
+    public long getAnimationPosition() {
+        return mPlayback.getPositionMillis();
+    }
+
+    public long getAnimationDuration() {
+        return mPlayback.getCycleMillis();
+    }
+
+    public void setAnimationSpeed(float speed) {
+        mPlayback.setSpeed(speed, System.nanoTime());
+        scheduleFrame();
+    }
+
+    public float getAnimationSpeed() {
+        return mPlayback.getSpeed();
+    }
+
+    private void updatePlaybackState() {
+        if (mPlayback == null) {
+            // Called from the super constructor, before our fields are initialized.
+            return;
+        }
+
+        final long now = System.nanoTime();
+        if (mMode == DisplayMode.Animate && mPlaybackRequested && mAttached && isShown()) {
+            if (!mPlayback.isPlaying()) {
+                mPlayback.play(now);
+                scheduleFrame();
+            }
+        } else if (mPlayback.isPlaying()) {
+            // A frame that is still posted finds the timeline paused and stops there.
+            mPlayback.pause(now);
+        }
+    }
+
+    /**
+     * Moves the Animate mode picture to the timeline position and schedules the next
+     * frame for when the picture will next change, if it is playing.
+     */
+    private void applyPlaybackPosition() {
+        final PlaybackTimeline playback = mPlayback;
+        playback.update(System.nanoTime());
+
+        final int numCircles = playback.getVisibleCount();
+        dirtyInProgressSegment();
+        if (numCircles < mPatternSize) {
+            // The cycle wrapped around.
+            dirtyPattern();
+            mPatternSize = 0;
+            clearPatternDrawLookup();
+            rebuildStrokePath();
+        }
+        while (mPatternSize < numCircles) {
+            final int cell = mPatternSize;
+            mPattern[cell] = cell;
+            mPatternDrawLookup[cell] = true;
+            mPatternSize++;
+            dirtyCell(cell);
+            if (cell > 0) {
+                dirtySegment(getCenterXForColumn(mLetter.getX(cell - 1)),
+                        getCenterYForRow(mLetter.getY(cell - 1)),
+                        getCenterXForColumn(mLetter.getX(cell)),
+                        getCenterYForRow(mLetter.getY(cell)));
+            }
+            invalidateStaticLayer();
+        }
+        appendConfirmedSegments();
+
+        if (numCircles > 0) {
+            final int currentCell = numCircles - 1;
+            final float centerX = getCenterXForColumn(mLetter.getX(currentCell));
+            final float centerY = getCenterYForRow(mLetter.getY(currentCell));
+            mInProgressX = centerX;
+            mInProgressY = centerY;
+
+            if (playback.isInterpolating()) {
+                final float percentageOfNextCircle = playback.getSegmentFraction();
+                final int nextCell = numCircles;
+                mInProgressX += percentageOfNextCircle *
+                        (getCenterXForColumn(mLetter.getX(nextCell)) - centerX);
+                mInProgressY += percentageOfNextCircle *
+                        (getCenterYForRow(mLetter.getY(nextCell)) - centerY);
+            }
+        }
+        dirtyInProgressSegment();
+
+        final long delay = playback.getMillisUntilChange();
+        if (delay == 0) {
+            scheduleFrame();
+        } else if (delay > 0) {
+            scheduleFrameDelayed(delay);
         }
-        invalidate();
     }
 
     private void notifyCellAdded() {
         if (mPatternListener != null) {
-            mPatternListener.onPatternCellAdded(mPoints);
+            mPatternListener.onPatternCellAdded(mPatternPoints);
         }
     }
 
@@ -211,7 +679,11 @@ public class LetterView extends View {
 
     private void notifyPatternDetected() {
         if (mPatternListener != null) {
-            mPatternListener.onPatternDetected(mPoints);
+            mPatternListener.onPatternDetected(mPatternPoints);
+        }
+        if (mPatternChangeListener != null) {
+            deliverCellsAdded();
+            mPatternChangeListener.onPatternDetected(getPatternSnapshot());
         }
     }
 
@@ -219,6 +691,34 @@ public class LetterView extends View {
         if (mPatternListener != null) {
             mPatternListener.onPatternCleared();
         }
+        if (mPatternChangeListener != null) {
+            mPatternChangeListener.onPatternCleared();
+        }
+    }
+
+    /**
+     * Reports the cells added since the last report, with the stroke samples that led
+     * to them.
+     */
+    private void deliverCellsAdded() {
+        final int size = mPatternSnapshotSize;
+        if (mPatternChangeListener == null || mPendingCellsFrom >= size) {
+            return;
+        }
+        final PatternSnapshot snapshot = getPatternSnapshot();
+        final long samplesEnd = mStroke.getStartSequence() + mStroke.size();
+        final int from = mPendingCellsFrom;
+        final long samplesFrom = mPendingSamplesFrom;
+        mPendingCellsFrom = size;
+        mPendingSamplesFrom = samplesEnd;
+        mPatternChangeListener.onCellsAdded(snapshot, from, size, samplesFrom, samplesEnd);
+    }
+
+    private void resetPatternSnapshot() {
+        mPatternSnapshot = null;
+        mPatternSnapshotSize = 0;
+        mPendingCellsFrom = 0;
+        mPendingSamplesFrom = 0;
     }
     
     public void clearPattern() {
@@ -226,17 +726,19 @@ public class LetterView extends View {
     }
     
     private void resetPattern() {
-        mLetter = new Letter();
+        mTweens.finishAll(-1);
+        dirtyPattern();
+        mPatternSize = 0;
+        mPatternPoints.clear();
+        resetPatternSnapshot();
         clearPatternDrawLookup();
+        rebuildStrokePath();
         mMode = DisplayMode.Correct;
-        invalidate();
+        scheduleFrame();
     }
 
     private void clearPatternDrawLookup() {
-        mPatternDrawLookup.clear();
-        for(Point point : mPoints) {
-            mPatternDrawLookup.put(point, Boolean.FALSE);
-        }
+        Arrays.fill(mPatternDrawLookup, false);
     }
 
     public void disableInput() {
@@ -254,6 +756,43 @@ public class LetterView extends View {
 
         final int height = h - getPaddingTop() - getPaddingBottom();
         mSquareHeight = height / DIVISION;
+
+        updateLodLevel();
+        rebuildHitIndex();
+        rebuildDistanceField();
+        rebuildStrokePath();
+        releaseStaticLayer();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAttached = true;
+        updatePlaybackState();
+        startRenderThread();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updatePlaybackState();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updatePlaybackState();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mAttached = false;
+        updatePlaybackState();
+        mTweens.finishAll(-1);
+        cancelFrame();
+        stopRenderThread();
+        releaseStaticLayer();
     }
 
     private int resolveMeasured(int measureSpec, int desired)
@@ -297,143 +836,337 @@ public class LetterView extends View {
     }
 
     
-    private Point detectAndAddHit(float x, float y) {
-        final Point point = checkForNewHit(x, y);
-        if (point != null) {
-            addCellToPattern(point);
+    private int detectAndAddHit(float x, float y) {
+        final int cell = checkForNewHit(x, y);
+        if (cell >= 0) {
+            addCellToPattern(cell);
             if (mEnableHapticFeedback) {
                 performHapticFeedback(HapticFeedbackConstants.VIRTUAL_KEY,
                         HapticFeedbackConstants.FLAG_IGNORE_VIEW_SETTING
                                 | HapticFeedbackConstants.FLAG_IGNORE_GLOBAL_SETTING);
             }
-            return point;
+            return cell;
         }
-        return null;
+        return -1;
     }
 
-    private void addCellToPattern(Point newCell) {
-        mPatternDrawLookup.put(newCell,Boolean.TRUE);
-        mPoints.add(newCell);
+    private void addCellToPattern(int newCell) {
+        invalidateStaticLayer();
+        dirtyCell(newCell);
+        mPatternDrawLookup[newCell] = true;
+        mPattern[mPatternSize++] = newCell;
+        mPatternPoints.add(mCellPoints[newCell]);
+        mPatternSnapshotSize++;
+        if (mScoringPipeline != null) {
+            mScoringPipeline.cellAdded(newCell);
+        }
         if (!mInStealthMode) {
             startCellActivatedAnimation(newCell);
         }
+        appendConfirmedSegments();
         notifyCellAdded();
+        if (mPatternChangeListener != null) {
+            if (mPatternSnapshotSize == 1) {
+                mPatternChangeListener.onPatternStart();
+            }
+            if (mCoalescePatternChanges) {
+                scheduleFrame();
+            } else {
+                deliverCellsAdded();
+            }
+        }
     }
 
     private float mLastStartX = 0f;
     private float mLastStartY = 0f;
 
-    private void startCellActivatedAnimation(Point point) {
-        final CellState cellState = mPointStates.get(point);
+    private void startCellActivatedAnimation(int cell) {
+        final CellState cellState = mCellStates[cell];
         cellState.lineStartX = mLastStartX;
         cellState.lineStartY = mLastStartY;
 
-        mLastStartX = getCenterXForColumn(point.x);
-        mLastStartY = getCenterYForRow(point.y);
+        mLastStartX = getCenterXForColumn(mLetter.getX(cell));
+        mLastStartY = getCenterYForRow(mLetter.getY(cell));
+
+        final long now = System.nanoTime();
+        cellState.sizeTweens += 2;
+        mTweens.schedule(cell, TWEEN_SIZE, mDotSize, mDotSizeActivated,
+                now, 0, SIZE_GROW_NANOS, Easing.LINEAR_OUT_SLOW_IN);
+        mTweens.schedule(cell, TWEEN_SIZE, mDotSizeActivated, mDotSize,
+                now, SIZE_GROW_NANOS, SIZE_SHRINK_NANOS, Easing.FAST_OUT_SLOW_IN);
+
+        cellState.lineAnimating = true;
+        cellState.lineTweenStartX = mInProgressX;
+        cellState.lineTweenStartY = mInProgressY;
+        cellState.lineEndX = mInProgressX;
+        cellState.lineEndY = mInProgressY;
+        mTweens.schedule(cell, TWEEN_LINE_END, 0f, 1f,
+                now, 0, LINE_END_NANOS, Easing.FAST_OUT_SLOW_IN);
+
+        scheduleFrame();
+    }
 
-        startSizeAnimation(mDotSize, mDotSizeActivated, 96, mLinearOutSlowInInterpolator,
-                cellState, new Runnable() {
-                    @Override
-                    public void run() {
-                        startSizeAnimation(mDotSizeActivated, mDotSize, 192, mFastOutSlowInInterpolator,
-                                cellState, null);
-                    }
-                });
-        startLineEndAnimation(cellState, mInProgressX, mInProgressY,
-                getCenterXForColumn(point.x), getCenterYForRow(point.y));
-    }
-
-    private void startLineEndAnimation(final CellState state,
-                                       final float startX, final float startY, final float targetX, final float targetY) {
-        ValueAnimator valueAnimator = ValueAnimator.ofFloat(0, 1);
-        valueAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                float t = (float) animation.getAnimatedValue();
-                state.lineEndX = (1 - t) * startX + t * targetX;
-                state.lineEndY = (1 - t) * startY + t * targetY;
-                invalidate();
-            }
-        });
-        valueAnimator.addListener(new AnimatorListenerAdapter() {
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                state.lineAnimator = null;
-            }
-        });
-        valueAnimator.setInterpolator(mFastOutSlowInInterpolator);
-        valueAnimator.setDuration(100);
-        valueAnimator.start();
-        state.lineAnimator = valueAnimator;
-    }
-
-    private void startSizeAnimation(float start, float end, long duration, Interpolator interpolator,
-                                    final CellState state, final Runnable endRunnable) {
-        ValueAnimator valueAnimator = ValueAnimator.ofFloat(start, end);
-        valueAnimator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                state.size = (float) animation.getAnimatedValue();
-                invalidate();
+    /**
+     * Posts the frame callback that advances all cell tweens and the playback, and
+     * invalidates the area that changed. However much is animating, there is one
+     * callback and one invalidate per frame. Callbacks posted while handling input
+     * run in the same frame, so touch feedback is not delayed.
+     */
+    private void scheduleFrame() {
+        if (mFramePosted && !mFrameDelayed) {
+            return;
+        }
+        cancelFrame();
+        mFramePosted = true;
+        Choreographer.getInstance().postFrameCallback(mFrameCallback);
+    }
+
+    private void scheduleFrameDelayed(long delayMillis) {
+        if (!mFramePosted) {
+            mFramePosted = true;
+            mFrameDelayed = true;
+            Choreographer.getInstance().postFrameCallbackDelayed(mFrameCallback, delayMillis);
+        }
+    }
+
+    private void cancelFrame() {
+        if (mFramePosted) {
+            mFramePosted = false;
+            Choreographer.getInstance().removeFrameCallback(mFrameCallback);
+        }
+        mFrameDelayed = false;
+    }
+
+    private void flushDirtyRegion() {
+        final DirtyRegion dirty = mDirty;
+        if (dirty.isEmpty()) {
+            mPendingTouchMillis = -1;
+            return;
+        }
+        mMetrics.invalidations++;
+        if (mRenderThread != null) {
+            publishSnapshot(dirty);
+        } else if (dirty.isFull()) {
+            invalidate();
+        } else {
+            invalidate(dirty.getLeft(), dirty.getTop(), dirty.getRight(), dirty.getBottom());
+        }
+        dirty.clear();
+
+        if (mPendingTouchMillis >= 0) {
+            // Event times are in the uptime clock, which runs on the same monotonic
+            // clock as System.nanoTime().
+            mMetrics.touchToInvalidateNanos.record(
+                    System.nanoTime() - mPendingTouchMillis * NANOS_PER_MILLI);
+            mPendingTouchMillis = -1;
+        }
+    }
+
+    /**
+     * Copies the drawing state into the render thread's back snapshot and hands it over.
+     * Only the drawn cells are copied: the level of detail and the pattern, so the cost
+     * follows what is on screen rather than the letter's point count.
+     */
+    private void publishSnapshot(DirtyRegion dirty) {
+        final LetterRenderThread thread = mRenderThread;
+        if (!thread.hasUndrawnSnapshot()) {
+            mRenderDirty.clear();
+        }
+        mRenderDirty.add(dirty);
+
+        final RenderSnapshot s = thread.getBackSnapshot();
+        s.ensureCapacity(mLetter.size());
+        final int[] lodCells = mLodCells;
+        int drawnCount = 0;
+        for (int i = 0; i < lodCells.length; i++) {
+            final int cell = lodCells[i];
+            if (!mPatternDrawLookup[cell]) {
+                copyCell(s, cell);
+                s.drawnCells[drawnCount++] = cell;
             }
-        });
-        if (endRunnable != null) {
-            valueAnimator.addListener(new AnimatorListenerAdapter() {
-                @Override
-                public void onAnimationEnd(Animator animation) {
-                    endRunnable.run();
-                }
-            });
         }
-        valueAnimator.setInterpolator(interpolator);
-        valueAnimator.setDuration(duration);
-        valueAnimator.start();
+        final int patternSize = mPatternSize;
+        for (int i = 0; i < patternSize; i++) {
+            final int cell = mPattern[i];
+            copyCell(s, cell);
+            s.drawnCells[drawnCount++] = cell;
+        }
+        s.drawnCount = drawnCount;
+
+        System.arraycopy(mPattern, 0, s.pattern, 0, patternSize);
+        s.patternSize = patternSize;
+        s.strokeCellCount = mStrokeCellCount;
+        s.drawPath = !mInStealthMode;
+        s.staticGeneration = mStaticLayerGeneration;
+        s.regularColor = getCurrentColor(false);
+        s.patternColor = getCurrentColor(true);
+
+        s.drawInProgress = (mPatternInProgress || mMode == DisplayMode.Animate)
+                && patternSize > 0;
+        if (s.drawInProgress) {
+            final int lastCell = mPattern[patternSize - 1];
+            s.inProgressFromX = s.cellXs[lastCell];
+            s.inProgressFromY = s.cellYs[lastCell];
+            s.inProgressToX = mInProgressX;
+            s.inProgressToY = mInProgressY;
+            s.inProgressAlpha = calculateLastSegmentAlpha(
+                    mInProgressX, mInProgressY, s.inProgressFromX, s.inProgressFromY);
+        }
+
+        s.setDirty(mRenderDirty);
+        thread.publish();
     }
-    
-    private Point checkForNewHit(float x, float y) {
-        float hitSize = mDotSize * 4f;
 
-        Point point = null;
-        RectF r;
+    private void copyCell(RenderSnapshot s, int cell) {
+        final CellState state = mCellStates[cell];
+        final float centerX = getCenterXForColumn(mLetter.getX(cell));
+        final float centerY = getCenterYForRow(mLetter.getY(cell));
+        s.cellXs[cell] = centerX;
+        s.cellYs[cell] = centerY;
+        s.cellTranslates[cell] = state.translate;
+        s.cellSizes[cell] = state.size * state.scale;
+        s.cellAlphas[cell] = state.alpha;
+        s.cellInPattern[cell] = mPatternDrawLookup[cell];
+        s.cellAnimating[cell] = state.sizeTweens > 0;
+        s.lineStartXs[cell] = state.lineStartX;
+        s.lineStartYs[cell] = state.lineStartY;
+        final boolean hasEnd = state.lineEndX != Float.MIN_VALUE
+                && state.lineEndY != Float.MIN_VALUE;
+        s.lineEndXs[cell] = hasEnd ? state.lineEndX : centerX;
+        s.lineEndYs[cell] = hasEnd ? state.lineEndY : centerY;
+    }
 
-        float pixelX;
-        float pixelY;
+    private void dirtyCell(int cell) {
+        final float radius = Math.max(mDotSize, mDotSizeActivated) * 0.5f + DIRTY_MARGIN;
+        mDirty.addCircle(getCenterXForColumn(mLetter.getX(cell)),
+                getCenterYForRow(mLetter.getY(cell)) + mCellStates[cell].translate, radius);
+    }
 
-        for(int i = 0; i < mPoints.size(); ++i) {
-            point = mPoints.get(i);
+    private void dirtySegment(float x0, float y0, float x1, float y1) {
+        mDirty.addSegment(x0, y0, x1, y1, mPathWidth * 0.5f + DIRTY_MARGIN);
+    }
 
-            pixelX = getPaddingLeft() + getMeasuredWidth() * point.x;
-            pixelY = getPaddingTop() + getMeasuredHeight() * point.y;
+    /** The animating line that leads into a cell, as drawn by drawSegment. */
+    private void dirtyCellSegment(CellState state) {
+        if (state.lineStartX != 0f && state.lineStartY != 0f) {
+            dirtySegment(state.lineStartX, state.lineStartY, state.lineEndX, state.lineEndY);
+        }
+    }
 
-            r = new RectF();
-            r.left = pixelX - hitSize;
-            r.right = pixelX + hitSize;
-            r.top = pixelY - hitSize;
-            r.bottom = pixelY + hitSize;
+    /** The line from the last cell to the finger, or to the playback position. */
+    private void dirtyInProgressSegment() {
+        if (mPatternSize > 0) {
+            final int lastCell = mPattern[mPatternSize - 1];
+            dirtySegment(getCenterXForColumn(mLetter.getX(lastCell)),
+                    getCenterYForRow(mLetter.getY(lastCell)), mInProgressX, mInProgressY);
+        }
+    }
 
-            if(r.contains(x, y)) {
-                break;
-            } else {
-                point = null;
-            }
+    /**
+     * Everything the current pattern draws: its cells, the lines between them, which
+     * lie within the cells' bounds, and the in-progress line.
+     */
+    private void dirtyPattern() {
+        for (int i = 0; i < mPatternSize; i++) {
+            dirtyCell(mPattern[i]);
+        }
+        dirtyInProgressSegment();
+    }
+    
+    private void rebuildHitIndex() {
+        final int width = getMeasuredWidth();
+        final int height = getMeasuredHeight();
+        if (width == 0 || height == 0) {
+            mHitIndex.clear();
+            return;
         }
 
-        if(null == point) {
-            return null;
+        final float hitSize = mDotSize * HIT_SIZE_FACTOR;
+        mHitIndex.build(mLetter, hitSize / width, hitSize / height);
+        if (mSegmentHits.length < mLetter.size()) {
+            mSegmentHits = new int[mLetter.size()];
         }
+    }
 
-        if (mPatternDrawLookup.get(point)) {
-            return null;
-        } else {
-            return point;
+    private void rebuildDistanceField() {
+        final int width = getMeasuredWidth();
+        final int height = getMeasuredHeight();
+        mDistanceField = width > 0 && height > 0
+                ? DISTANCE_FIELDS.get(mLetter, width, height)
+                : null;
+    }
+
+    /**
+     * Distance in pixels from the given position to the letter's polyline, e.g. to
+     * tell whether a finger is on track. A lookup, cheap enough for every sample.
+     */
+    public float getDistanceToLetter(float x, float y) {
+        if (mDistanceField == null) {
+            return 0f;
+        }
+        return mDistanceField.distanceAt((x - getPaddingLeft()) / getMeasuredWidth(),
+                (y - getPaddingTop()) / getMeasuredHeight());
+    }
+
+    /**
+     * Distance in pixels of the latest touch sample from the letter's polyline.
+     */
+    public float getDeviation() {
+        return mDeviation;
+    }
+
+    /**
+     * Adds every cell the finger crossed on its way from the previous sample to this
+     * one, in the order it crossed them, so a fast swipe does not skip cells lying
+     * between two samples.
+     *
+     * @return the number of cells added
+     */
+    private int detectAndAddHits(float x, float y) {
+        final long start = System.nanoTime();
+        final float left = getPaddingLeft();
+        final float top = getPaddingTop();
+        final float width = getMeasuredWidth();
+        final float height = getMeasuredHeight();
+        final int count = mHitIndex.querySegment(
+                (mLastSampleX - left) / width, (mLastSampleY - top) / height,
+                (x - left) / width, (y - top) / height, mSegmentHits);
+        mMetrics.hitTestNanos.record(System.nanoTime() - start);
+        mLastSampleX = x;
+        mLastSampleY = y;
+        mDeviation = getDistanceToLetter(x, y);
+
+        int added = 0;
+        for (int i = 0; i < count; i++) {
+            final int cell = mSegmentHits[i];
+            if (!mPatternDrawLookup[cell]) {
+                addCellToPattern(cell);
+                added++;
+            }
+        }
+        if (added > 0 && mEnableHapticFeedback) {
+            performHapticFeedback(HapticFeedbackConstants.VIRTUAL_KEY,
+                    HapticFeedbackConstants.FLAG_IGNORE_VIEW_SETTING
+                            | HapticFeedbackConstants.FLAG_IGNORE_GLOBAL_SETTING);
         }
+        return added;
+    }
+
+    private int checkForNewHit(float x, float y) {
+        final long start = System.nanoTime();
+        final int cell = mHitIndex.query(
+                (x - getPaddingLeft()) / getMeasuredWidth(),
+                (y - getPaddingTop()) / getMeasuredHeight());
+        mMetrics.hitTestNanos.record(System.nanoTime() - start);
+        if (cell < 0 || mPatternDrawLookup[cell]) {
+            return -1;
+        }
+        return cell;
     }
 
     @Override
     public boolean onHoverEvent(MotionEvent event) {
-        AccessibilityManager accessibilityManager =
-                (AccessibilityManager) getContext().getSystemService(Context.ACCESSIBILITY_SERVICE);
-        if (accessibilityManager.isTouchExplorationEnabled()) {
+        if (mAccessibilityManager.isTouchExplorationEnabled()) {
             final int action = event.getAction();
             switch (action) {
                 case MotionEvent.ACTION_HOVER_ENTER:
@@ -474,78 +1207,82 @@ public class LetterView extends View {
                     resetPattern();
                     notifyPatternCleared();
                 }
-                if (PROFILE_DRAWING) {
-                    if (mDrawingProfilingStarted) {
-                        Debug.stopMethodTracing();
-                        mDrawingProfilingStarted = false;
-                    }
-                }
                 return true;
         }
         return false;
     }
 
     private void handleActionMove(MotionEvent event) {
-        
-        
-        final float radius = mPathWidth;
         final int historySize = event.getHistorySize();
-        mTmpInvalidateRect.setEmpty();
-        boolean invalidateNow = false;
-        for (int i = 0; i < historySize + 1; i++) {
-            final float x = i < historySize ? event.getHistoricalX(i) : event.getX();
-            final float y = i < historySize ? event.getHistoricalY(i) : event.getY();
-            Point hitCell = detectAndAddHit(x, y);
-            final int patternSize = mPoints.size();
-            if (hitCell != null && patternSize == 1) {
-                mPatternInProgress = true;
-                notifyPatternStarted();
-            }
-            
-            final float dx = Math.abs(x - mInProgressX);
-            final float dy = Math.abs(y - mInProgressY);
-            if (dx > DRAG_THRESHHOLD || dy > DRAG_THRESHHOLD) {
-                invalidateNow = true;
+        final int patternSizeBefore = mPatternSize;
+        for (int i = 0; i < historySize; i++) {
+            addStrokeSample(event.getHistoricalX(i), event.getHistoricalY(i),
+                    event.getHistoricalEventTime(i), event.getHistoricalPressure(i));
+        }
+        addStrokeSample(event.getX(), event.getY(), event.getEventTime(), event.getPressure());
+        if (mScoringPipeline != null) {
+            mScoringPipeline.flush();
+        }
+
+        // The line to the finger ends at the filtered position too, so it does not
+        // jitter ahead of the stroke.
+        final float x = mStrokeFilter.getX();
+        final float y = mStrokeFilter.getY();
+        final float dx = Math.abs(x - mInProgressX);
+        final float dy = Math.abs(y - mInProgressY);
+        if (mPatternSize == patternSizeBefore && dx <= DRAG_THRESHHOLD && dy <= DRAG_THRESHHOLD) {
+            return;
+        }
+        if (mPatternInProgress) {
+            // The line to the finger, from where it was drawn to where it goes now. New
+            // cells and their lines were added by addCellToPattern.
+            if (patternSizeBefore > 0) {
+                final int lastCell = mPattern[patternSizeBefore - 1];
+                dirtySegment(getCenterXForColumn(mLetter.getX(lastCell)),
+                        getCenterYForRow(mLetter.getY(lastCell)), mInProgressX, mInProgressY);
             }
+            mInProgressX = x;
+            mInProgressY = y;
+            dirtyInProgressSegment();
+            markTouchPending(event);
+            scheduleFrame();
+        } else {
+            mInProgressX = x;
+            mInProgressY = y;
+        }
+    }
 
-            if (mPatternInProgress && patternSize > 0) {
-                final ArrayList<Point> pattern = mPoints;
-                final Point lastCell = pattern.get(patternSize - 1);
-                float lastCellCenterX = getCenterXForColumn(lastCell.x);
-                float lastCellCenterY = getCenterYForRow(lastCell.y);
-
-                
-                float left = Math.min(lastCellCenterX, x) - radius;
-                float right = Math.max(lastCellCenterX, x) + radius;
-                float top = Math.min(lastCellCenterY, y) - radius;
-                float bottom = Math.max(lastCellCenterY, y) + radius;
-
-                
-                if (hitCell != null) {
-                    final float width = mSquareWidth * 0.5f;
-                    final float height = mSquareHeight * 0.5f;
-                    final float hitCellCenterX = getCenterXForColumn(hitCell.x);
-                    final float hitCellCenterY = getCenterYForRow(hitCell.y);
-
-                    left = Math.min(hitCellCenterX - width, left);
-                    right = Math.max(hitCellCenterX + width, right);
-                    top = Math.min(hitCellCenterY - height, top);
-                    bottom = Math.max(hitCellCenterY + height, bottom);
-                }
+    /**
+     * A raw touch sample: records it and runs it through the stroke filter. Any cell
+     * it leads to is added before the next sample is recorded, so the samples reported
+     * with a cell end at the one that reached it.
+     */
+    private void addStrokeSample(float x, float y, long time, float pressure) {
+        mStroke.add(x, y, time, pressure);
+        mStrokeFilter.add(x, y, time, mFilteredSamples);
+    }
 
-                
-                mTmpInvalidateRect.union(Math.round(left), Math.round(top),
-                        Math.round(right), Math.round(bottom));
-            }
+    /**
+     * A filtered touch sample: passes it on for scoring and adds the cells it reached.
+     */
+    private void addFilteredSample(float x, float y, long time) {
+        mFilteredStroke.add(x, y, time, 1f);
+        publishSample(x, y, time, false);
+        final int sizeBefore = mPatternSize;
+        if (detectAndAddHits(x, y) > 0 && sizeBefore == 0) {
+            mPatternInProgress = true;
+            notifyPatternStarted();
         }
-        mInProgressX = event.getX();
-        mInProgressY = event.getY();
+    }
 
-        
-        if (invalidateNow) {
-            mInvalidate.union(mTmpInvalidateRect);
-            invalidate(mInvalidate);
-            mInvalidate.set(mTmpInvalidateRect);
+    private void notifyStrokeScored() {
+        if (mStrokeScoredListener != null && mLetterTemplate != null) {
+            // Scored on the filtered samples, like the pipeline, so both agree and
+            // jitter does not count against the stroke. The letter maps to the view
+            // with a separate scale per axis.
+            final float score = mRecognizer.score(mLetterTemplate, mFilteredStroke,
+                    1f / getMeasuredWidth(), 1f / getMeasuredHeight());
+            mStrokeScoredListener.onStrokeScored(score, mStroke);
         }
     }
 
@@ -554,41 +1291,46 @@ public class LetterView extends View {
     }
 
     private void handleActionUp(MotionEvent event) {
+        addStrokeSample(event.getX(), event.getY(), event.getEventTime(), event.getPressure());
+        mStrokeFilter.finish(mFilteredSamples);
         mLastStartX = 0f;
         mLastStartY = 0f;
-        if (!mPoints.isEmpty()) {
+        if (mPatternSize > 0) {
+            // The pattern changes color and loses the line to the finger.
+            dirtyPattern();
             mPatternInProgress = false;
+            invalidateStaticLayer();
             cancelLineAnimations();
             notifyPatternDetected();
-            invalidate();
+            markTouchPending(event);
+            scheduleFrame();
         }
-
-        if (PROFILE_DRAWING) {
-            if (mDrawingProfilingStarted) {
-                Debug.stopMethodTracing();
-                mDrawingProfilingStarted = false;
-            }
+        if (mScoringPipeline != null) {
+            mScoringPipeline.strokeEnded(event.getEventTime());
+            mScoringPipeline.flush();
         }
+        notifyStrokeScored();
     }
 
     private void cancelLineAnimations() {
-        for(Point point : mPoints) {
-            CellState state = mPointStates.get(point);
-            if (state.lineAnimator != null) {
-                state.lineAnimator.cancel();
-                state.lineStartX = Float.MIN_VALUE;
-                state.lineStartY = Float.MIN_VALUE;
-                state.lineEndX = Float.MIN_VALUE;
-                state.lineEndY = Float.MIN_VALUE;
-            }
-        }
+        // Finishing the tweens moves their segments into the stroke path.
+        mTweens.finishAll(TWEEN_LINE_END);
     }
     private void handleActionDown(MotionEvent event) {
         resetPattern();
         final float x = event.getX();
         final float y = event.getY();
-        final Point hitCell = detectAndAddHit(x, y);
-        if (hitCell != null) {
+        mStroke.clear();
+        mStroke.add(x, y, event.getEventTime(), event.getPressure());
+        mFilteredStroke.clear();
+        mFilteredStroke.add(x, y, event.getEventTime(), 1f);
+        mStrokeFilter.start(x, y, event.getEventTime());
+        publishSample(x, y, event.getEventTime(), true);
+        mLastSampleX = x;
+        mLastSampleY = y;
+        mDeviation = getDistanceToLetter(x, y);
+        final int hitCell = detectAndAddHit(x, y);
+        if (hitCell >= 0) {
             mPatternInProgress = true;
             mMode = DisplayMode.Correct;
             notifyPatternStarted();
@@ -596,23 +1338,39 @@ public class LetterView extends View {
             mPatternInProgress = false;
             notifyPatternCleared();
         }
-        if (hitCell != null) {
-            final float startX = getCenterXForColumn(hitCell.x);
-            final float startY = getCenterYForRow(hitCell.y);
-
-            final float widthOffset = 0;//mSquareWidth / 2f;
-            final float heightOffset = 0;//mSquareHeight / 2f;
-
-            invalidate((int) (startX - widthOffset), (int) (startY - heightOffset),
-                    (int) (startX + widthOffset), (int) (startY + heightOffset));
-        }
         mInProgressX = x;
         mInProgressY = y;
-        if (PROFILE_DRAWING) {
-            if (!mDrawingProfilingStarted) {
-                Debug.startMethodTracing("LockPatternDrawing");
-                mDrawingProfilingStarted = true;
-            }
+        markTouchPending(event);
+        if (mScoringPipeline != null) {
+            mScoringPipeline.flush();
+        }
+    }
+
+    /**
+     * Passes a touch sample, in the letter's normalized coordinates, to the scoring
+     * pipeline.
+     */
+    private void publishSample(float x, float y, long time, boolean first) {
+        final ScoringPipeline pipeline = mScoringPipeline;
+        if (pipeline == null) {
+            return;
+        }
+        final float normalizedX = (x - getPaddingLeft()) / getMeasuredWidth();
+        final float normalizedY = (y - getPaddingTop()) / getMeasuredHeight();
+        if (first) {
+            pipeline.strokeStarted(normalizedX, normalizedY, time);
+        } else {
+            pipeline.sample(normalizedX, normalizedY, time);
+        }
+    }
+
+    /**
+     * Remembers the oldest touch event not yet shown, for the touch-to-invalidate
+     * latency recorded when the frame flushes the dirty region.
+     */
+    private void markTouchPending(MotionEvent event) {
+        if (mPendingTouchMillis < 0) {
+            mPendingTouchMillis = event.getEventTime();
         }
     }
 
@@ -626,107 +1384,219 @@ public class LetterView extends View {
 
     @Override
     protected void onDraw(Canvas canvas) {
-        final ArrayList<Point> pattern = mPoints;
-        final int count = pattern.size();
-        final HashMap<Point, Boolean> drawLookup = mPatternDrawLookup;
+        if (mRenderThread != null) {
+            // The render thread draws into the render surface instead.
+            return;
+        }
+        final long start = System.nanoTime();
+        final Letter letter = mLetter;
+        final int[] pattern = mPattern;
 
-        if (mMode == DisplayMode.Animate) {
-            final int oneCycle = (count + 1) * MILLIS_PER_CIRCLE_ANIMATING;
-            final int spotInCycle = (int) (SystemClock.elapsedRealtime() -
-                    mAnimatingPeriodStart) % oneCycle;
-            final int numCircles = spotInCycle / MILLIS_PER_CIRCLE_ANIMATING;
+        drawStaticLayer(canvas);
 
-            clearPatternDrawLookup();
-            for (int i = 0; i < numCircles; i++) {
-                final Point point = pattern.get(i);
-                drawLookup.put(point, Boolean.TRUE);
+        // Only cells that are still animating are drawn live, on top of the static layer.
+        final boolean drawPath = !mInStealthMode;
+        final int patternSize = mPatternSize;
+        for (int i = 0; i < patternSize; i++) {
+            final int cell = pattern[i];
+            if (mCellStates[cell].sizeTweens > 0) {
+                drawCell(canvas, cell);
             }
+        }
 
-            final boolean needToUpdateInProgressPoint = numCircles > 0
-                    && numCircles < count;
-
-            if (needToUpdateInProgressPoint) {
-                final float percentageOfNextCircle =
-                        ((float) (spotInCycle % MILLIS_PER_CIRCLE_ANIMATING)) /
-                                MILLIS_PER_CIRCLE_ANIMATING;
-
-                final Point currentCell = pattern.get(numCircles - 1);
-                final float centerX = getCenterXForColumn(currentCell.x);
-                final float centerY = getCenterYForRow(currentCell.y);
-
-                final Point nextCell = pattern.get(numCircles);
-                final float dx = percentageOfNextCircle *
-                        (getCenterXForColumn(nextCell.x) - centerX);
-                final float dy = percentageOfNextCircle *
-                        (getCenterYForRow(nextCell.y) - centerY);
-                mInProgressX = centerX + dx;
-                mInProgressY = centerY + dy;
+        if (drawPath) {
+            mPathPaint.setColor(getCurrentColor(true));
+            for (int i = mStrokeCellCount; i < patternSize; i++) {
+                drawSegment(canvas, pattern[i]);
             }
-            
-            invalidate();
         }
 
-        final Path currentPath = mCurrentPath;
-        currentPath.rewind();
+        if (drawPath && (mPatternInProgress || mMode == DisplayMode.Animate)
+                && patternSize > 0) {
+            final int lastCell = pattern[patternSize - 1];
+            final float lastX = getCenterXForColumn(letter.getX(lastCell));
+            final float lastY = getCenterYForRow(letter.getY(lastCell));
 
-        for(Point point : mPoints) {
-            CellState cellState = mPointStates.get(point);
+            final Path currentPath = mCurrentPath;
+            currentPath.rewind();
+            currentPath.moveTo(lastX, lastY);
+            currentPath.lineTo(mInProgressX, mInProgressY);
 
-            float centerX = getCenterXForColumn(point.x);
-            float centerY = getCenterYForRow(point.y);
+            mPathPaint.setAlpha((int) (calculateLastSegmentAlpha(
+                    mInProgressX, mInProgressY, lastX, lastY) * 255f));
+            canvas.drawPath(currentPath, mPathPaint);
+        }
 
-            float size = cellState.size * cellState.scale;
-            float translationY = cellState.translate;
+        recordDraw(canvas, start);
+    }
 
-            drawCircle(canvas, (int) centerX, (int) centerY + translationY,
-                    size, drawLookup.get(point), cellState.alpha);
+    private void recordDraw(Canvas canvas, long start) {
+        final FrameMetrics metrics = mMetrics;
+        if (!canvas.getClipBounds(mClipBounds)
+                || (mClipBounds.width() >= getWidth() && mClipBounds.height() >= getHeight())) {
+            metrics.fullRedraws++;
+        } else {
+            metrics.partialRedraws++;
         }
-        
-        final boolean drawPath = !mInStealthMode;
 
-        if (drawPath) {
-            mPathPaint.setColor(getCurrentColor(true ));
+        final long now = System.nanoTime();
+        metrics.drawNanos.record(now - start);
+        reportMetrics(now);
+    }
 
-            boolean anyCircles = false;
-            float lastX = 0f;
-            float lastY = 0f;
-            for (int i = 0; i < count; i++) {
-                Point point = pattern.get(i);
+    /**
+     * Records the frames the render thread has drawn since the last call.
+     *
+     * @return the number of frames recorded
+     */
+    private int drainRenderMetrics() {
+        final LetterRenderThread thread = mRenderThread;
+        return thread != null ? thread.drainDrawEvents(mRenderMetricsSink) : 0;
+    }
 
-                if (!drawLookup.get(point)) {
-                    break;
+    private void reportMetrics(long now) {
+        if (mMetricsListener != null && now - mMetricsLastReportNanos >= mMetricsIntervalNanos) {
+            mMetricsLastReportNanos = now;
+            mMetrics.copyTo(mMetricsReport);
+            mMetrics.reset();
+            mMetricsListener.onMetrics(mMetricsReport);
+        }
+    }
+
+
+    private void invalidateStaticLayer() {
+        mStaticLayerDirty = true;
+        mStaticLayerGeneration++;
+    }
+
+    private void releaseStaticLayer() {
+        if (mStaticLayer != null) {
+            mStaticLayerCanvas.setBitmap(null);
+            mStaticLayer.recycle();
+            mStaticLayer = null;
+        }
+        invalidateStaticLayer();
+    }
+
+    /**
+     * Draws the dots and finished segments that are not animating. They are rendered
+     * once into an offscreen bitmap which is only redrawn after {@link #invalidateStaticLayer()}.
+     */
+    private void drawStaticLayer(Canvas canvas) {
+        final int width = getWidth();
+        final int height = getHeight();
+        if (width == 0 || height == 0) {
+            return;
+        }
+        if (mStaticLayer == null) {
+            mStaticLayer = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            mStaticLayerCanvas.setBitmap(mStaticLayer);
+            mStaticLayerDirty = true;
+        }
+
+        if (mStaticLayerDirty) {
+            mStaticLayerDirty = false;
+            mStaticLayer.eraseColor(Color.TRANSPARENT);
+
+            final Canvas layer = mStaticLayerCanvas;
+            final int[] lodCells = mLodCells;
+            for (int i = 0; i < lodCells.length; i++) {
+                final int cell = lodCells[i];
+                if (!mPatternDrawLookup[cell] && mCellStates[cell].sizeTweens == 0) {
+                    drawCell(layer, cell);
                 }
-                anyCircles = true;
-
-                float centerX = getCenterXForColumn(point.x);
-                float centerY = getCenterYForRow(point.y);
-
-                CellState state = mPointStates.get(point);
-                if (state.lineStartX != 0f && state.lineStartY != 0f) {
-                    currentPath.rewind();
-                    currentPath.moveTo(state.lineStartX, state.lineStartY);
-                    if (state.lineEndX != Float.MIN_VALUE && state.lineEndY != Float.MIN_VALUE) {
-                        currentPath.lineTo(state.lineEndX, state.lineEndY);
-                    } else {
-                        currentPath.lineTo(centerX, centerY);
-                    }
-                    canvas.drawPath(currentPath, mPathPaint);
+            }
+            // Pattern cells are always drawn, whatever the level of detail.
+            for (int i = 0; i < mPatternSize; i++) {
+                final int cell = mPattern[i];
+                if (mCellStates[cell].sizeTweens == 0) {
+                    drawCell(layer, cell);
                 }
-                lastX = centerX;
-                lastY = centerY;
             }
 
-            
-            if ((mPatternInProgress || mMode == DisplayMode.Animate)
-                    && anyCircles) {
-                currentPath.rewind();
-                currentPath.moveTo(lastX, lastY);
-                currentPath.lineTo(mInProgressX, mInProgressY);
-
-                mPathPaint.setAlpha((int) (calculateLastSegmentAlpha(
-                        mInProgressX, mInProgressY, lastX, lastY) * 255f));
-                canvas.drawPath(currentPath, mPathPaint);
+            if (!mInStealthMode) {
+                mPathPaint.setColor(getCurrentColor(true));
+                layer.drawPath(mStrokePath, mPathPaint);
+            }
+        }
+
+        canvas.drawBitmap(mStaticLayer, 0, 0, null);
+    }
+
+    /**
+     * Picks the level of detail whose skipped dots lie within half a dot of a drawn one
+     * at the current content size. The pattern is left alone.
+     */
+    private void updateLodLevel() {
+        final int width = getMeasuredWidth() - getPaddingLeft() - getPaddingRight();
+        final int height = getMeasuredHeight() - getPaddingTop() - getPaddingBottom();
+        final int[] cells = mLod.getLevel(mLod.forSize(width, height, mLodPixelRadius));
+        if (cells == mLodCells) {
+            return;
+        }
+        mLodCells = cells;
+        invalidateStaticLayer();
+        mDirty.addAll();
+        scheduleFrame();
+    }
+
+    private void rebuildStrokePath() {
+        mStrokePath.rewind();
+        mStrokeCellCount = 0;
+        appendConfirmedSegments();
+        invalidateStaticLayer();
+    }
+
+    /**
+     * Extends {@link #mStrokePath} with the pattern cells whose connecting line is no
+     * longer animating. The path holds the confirmed stroke as one polyline, so the
+     * static layer draws it with a single call however long the stroke gets.
+     */
+    private void appendConfirmedSegments() {
+        while (mStrokeCellCount < mPatternSize) {
+            final int cell = mPattern[mStrokeCellCount];
+            if (mCellStates[cell].lineAnimating) {
+                break;
+            }
+
+            final float centerX = getCenterXForColumn(mLetter.getX(cell));
+            final float centerY = getCenterYForRow(mLetter.getY(cell));
+            if (mStrokeCellCount == 0) {
+                mStrokePath.moveTo(centerX, centerY);
+            } else {
+                mStrokePath.lineTo(centerX, centerY);
+            }
+            mStrokeCellCount++;
+            invalidateStaticLayer();
+        }
+    }
+
+    private void drawCell(Canvas canvas, int cell) {
+        final CellState cellState = mCellStates[cell];
+
+        float centerX = getCenterXForColumn(mLetter.getX(cell));
+        float centerY = getCenterYForRow(mLetter.getY(cell));
+
+        float size = cellState.size * cellState.scale;
+        float translationY = cellState.translate;
+
+        drawCircle(canvas, (int) centerX, (int) centerY + translationY,
+                size, mPatternDrawLookup[cell], cellState.alpha);
+    }
+
+    private void drawSegment(Canvas canvas, int cell) {
+        final CellState state = mCellStates[cell];
+        if (state.lineStartX != 0f && state.lineStartY != 0f) {
+            final Path currentPath = mCurrentPath;
+            currentPath.rewind();
+            currentPath.moveTo(state.lineStartX, state.lineStartY);
+            if (state.lineEndX != Float.MIN_VALUE && state.lineEndY != Float.MIN_VALUE) {
+                currentPath.lineTo(state.lineEndX, state.lineEndY);
+            } else {
+                currentPath.lineTo(getCenterXForColumn(mLetter.getX(cell)),
+                        getCenterYForRow(mLetter.getY(cell)));
             }
+            canvas.drawPath(currentPath, mPathPaint);
         }
     }
 
@@ -765,7 +1635,9 @@ public class LetterView extends View {
     protected Parcelable onSaveInstanceState() {
         Parcelable superState = super.onSaveInstanceState();
         return new SavedState(superState,
-                LetterViewUtils.patternToString(mPoints),
+                LetterViewUtils.patternToString(mLetter),
+                mMode != DisplayMode.Animate
+                        ? LetterViewUtils.cellsToString(mPattern, mPatternSnapshotSize) : null,
                 mMode.ordinal(),
                 mInputEnabled, mInStealthMode, mEnableHapticFeedback);
     }
@@ -777,7 +1649,10 @@ public class LetterView extends View {
         setPattern(
                 DisplayMode.Correct,
                 LetterViewUtils.stringToPattern(ss.getSerializedPattern()));
+        restoreCells(LetterViewUtils.stringToCells(ss.getSerializedCells()));
         mMode = DisplayMode.values()[ss.getDisplayMode()];
+        mPlayback.reset(mLetter.size(), System.nanoTime());
+        updatePlaybackState();
         mInputEnabled = ss.isInputEnabled();
         mInStealthMode = ss.isInStealthMode();
         mEnableHapticFeedback = ss.isTactileFeedbackEnabled();
@@ -803,6 +1678,50 @@ public class LetterView extends View {
         void onPatternDetected(List<Point> points);
     }
 
+    /**
+     * Pattern changes as deltas. The snapshots are immutable and share structure, so
+     * they can be kept or handed to other threads without copying.
+     */
+    public static interface OnPatternChangeListener {
+        /** Called before the first cell of a pattern is reported. */
+        void onPatternStart();
+
+        /**
+         * Cells {@code from} (inclusive) to {@code to} (exclusive) of {@code pattern}
+         * were added; {@code pattern.getCell(i)} and {@code pattern.getPoint(i)} give
+         * each one. Without coalescing this is one cell per call.
+         *
+         * @param samplesFrom sequence number, as in {@link StrokeSamples#getStartSequence()},
+         *                    of the first stroke sample since the previous call
+         * @param samplesTo   one past the sequence number of the raw sample whose
+         *                    filtered path reached the last added cell
+         */
+        void onCellsAdded(PatternSnapshot pattern, int from, int to,
+                          long samplesFrom, long samplesTo);
+
+        void onPatternDetected(PatternSnapshot pattern);
+
+        void onPatternCleared();
+    }
+
+    public static interface OnMetricsListener {
+        /**
+         * @param metrics what was recorded since the previous report; the instance is
+         *                reused, so copy it to keep it past the call
+         */
+        void onMetrics(FrameMetrics metrics);
+    }
+
+    public static interface OnStrokeScoredListener {
+        /**
+         * @param score   how closely the stroke followed the letter, from 0 to 1, judged
+         *                on the same smoothed samples as hit testing
+         * @param samples the raw samples of the stroke, as {@link #getStrokeSamples()}
+         *                returns them; only valid during the call
+         */
+        void onStrokeScored(float score, StrokeSamples samples);
+    }
+
     protected static class CellState {
         public float scale = 1.0f;
         public float translate = 0.0f;
@@ -812,21 +1731,46 @@ public class LetterView extends View {
         public float lineStartY = Float.NaN;
         public float lineEndX = Float.NaN;
         public float lineEndY = Float.NaN;
-        public ValueAnimator lineAnimator;
+        public float lineTweenStartX;
+        public float lineTweenStartY;
+        public int sizeTweens;
+        public boolean lineAnimating;
+    }
+
+    /**
+     * Puts back the cells the user had drawn, without animations or listener calls.
+     * Indices that do not fit the letter are skipped.
+     */
+    private void restoreCells(int[] cells) {
+        for (int cell : cells) {
+            if (cell < mLetter.size() && !mPatternDrawLookup[cell]) {
+                mPatternDrawLookup[cell] = true;
+                mPattern[mPatternSize++] = cell;
+                mPatternPoints.add(mCellPoints[cell]);
+                mPatternSnapshotSize++;
+            }
+        }
+        rebuildStrokePath();
+        mDirty.addAll();
+        scheduleFrame();
     }
 
     private static class SavedState extends BaseSavedState {
 
         private final String mSerializedPattern;
+        /** The cells drawn so far, or null. */
+        private final String mSerializedCells;
         private final int mDisplayMode;
         private final boolean mInputEnabled;
         private final boolean mInStealthMode;
         private final boolean mTactileFeedbackEnabled;
 
-        private SavedState(Parcelable superState, String serializedPattern, int displayMode,
+        private SavedState(Parcelable superState, String serializedPattern,
+                           String serializedCells, int displayMode,
                            boolean inputEnabled, boolean inStealthMode, boolean tactileFeedbackEnabled) {
             super(superState);
             mSerializedPattern = serializedPattern;
+            mSerializedCells = serializedCells;
             mDisplayMode = displayMode;
             mInputEnabled = inputEnabled;
             mInStealthMode = inStealthMode;
@@ -836,6 +1780,7 @@ public class LetterView extends View {
         private SavedState(Parcel in) {
             super(in);
             mSerializedPattern = in.readString();
+            mSerializedCells = in.readString();
             mDisplayMode = in.readInt();
             mInputEnabled = (Boolean) in.readValue(null);
             mInStealthMode = (Boolean) in.readValue(null);
@@ -846,6 +1791,10 @@ public class LetterView extends View {
             return mSerializedPattern;
         }
 
+        public String getSerializedCells() {
+            return mSerializedCells;
+        }
+
         public int getDisplayMode() {
             return mDisplayMode;
         }
@@ -866,6 +1815,7 @@ public class LetterView extends View {
         public void writeToParcel(Parcel dest, int flags) {
             super.writeToParcel(dest, flags);
             dest.writeString(mSerializedPattern);
+            dest.writeString(mSerializedCells);
             dest.writeInt(mDisplayMode);
             dest.writeValue(mInputEnabled);
             dest.writeValue(mInStealthMode);
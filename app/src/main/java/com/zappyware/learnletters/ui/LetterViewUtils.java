@@ -1,24 +1,36 @@
 package com.zappyware.learnletters.ui;
 
-import com.zappyware.learnletters.entities.Letter;
-import com.zappyware.learnletters.entities.Point;
+import android.util.Base64;
 
-import java.util.ArrayList;
+import com.zappyware.learnletters.entities.Letter;
+import com.zappyware.learnletters.io.PatternCodec;
 
 /**
  * Created by JGabika on 2015.02.26..
  */
 public class LetterViewUtils {
     public static String patternToString(Letter letter) {
-        return null;
+        if (letter == null) {
+            return null;
+        }
+        return Base64.encodeToString(PatternCodec.encode(letter), Base64.NO_WRAP);
+    }
+
+    public static Letter stringToPattern(String serializedPattern) {
+        if (serializedPattern == null) {
+            return new Letter();
+        }
+        return PatternCodec.decode(Base64.decode(serializedPattern, Base64.NO_WRAP));
     }
 
-    public static ArrayList<Point> stringToPattern(String serializedPattern) {
-        ArrayList<Point> points = new ArrayList<Point>();
-        return points;
+    public static String cellsToString(int[] cells, int count) {
+        return Base64.encodeToString(PatternCodec.encodeCells(cells, count), Base64.NO_WRAP);
     }
 
-    public static String patternToString(ArrayList<Point> mPoints) {
-        return null;
+    public static int[] stringToCells(String serializedCells) {
+        if (serializedCells == null) {
+            return new int[0];
+        }
+        return PatternCodec.decodeCells(Base64.decode(serializedCells, Base64.NO_WRAP));
     }
 }
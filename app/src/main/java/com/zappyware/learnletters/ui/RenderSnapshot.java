@@ -0,0 +1,87 @@
+package com.zappyware.learnletters.ui;
+
+import com.zappyware.learnletters.geometry.DirtyRegion;
+
+import java.util.Arrays;
+
+/**
+ * Everything {@link LetterRenderer} needs to draw one frame of a {@link LetterView},
+ * copied out of the view's state so a render thread can draw it while the UI thread
+ * moves on. Coordinates are in view pixels. Instances are recycled.
+ */
+final class RenderSnapshot {
+
+    /**
+     * The cells to draw: the level of detail, then the pattern. The per-cell arrays are
+     * indexed by cell and only filled for these.
+     */
+    int drawnCount;
+    int[] drawnCells = new int[0];
+    float[] cellXs = new float[0];
+    float[] cellYs = new float[0];
+    float[] cellTranslates = new float[0];
+    float[] cellSizes = new float[0];
+    float[] cellAlphas = new float[0];
+    boolean[] cellInPattern = new boolean[0];
+    boolean[] cellAnimating = new boolean[0];
+
+    int patternSize;
+    int[] pattern = new int[0];
+    /** The first {@code strokeCellCount} pattern cells are joined by a finished polyline. */
+    int strokeCellCount;
+    /** The animating line leading into each cell; drawn if the start is not 0, 0. */
+    float[] lineStartXs = new float[0];
+    float[] lineStartYs = new float[0];
+    float[] lineEndXs = new float[0];
+    float[] lineEndYs = new float[0];
+
+    boolean drawPath;
+    /**
+     * Changes whenever the settled cells or the finished stroke do; the renderer keeps
+     * them in a bitmap until then.
+     */
+    int staticGeneration;
+    int regularColor;
+    int patternColor;
+
+    boolean drawInProgress;
+    float inProgressFromX;
+    float inProgressFromY;
+    float inProgressToX;
+    float inProgressToY;
+    float inProgressAlpha;
+
+    boolean dirtyFull;
+    int dirtyLeft;
+    int dirtyTop;
+    int dirtyRight;
+    int dirtyBottom;
+
+    void ensureCapacity(int cells) {
+        if (cellXs.length < cells) {
+            drawnCells = Arrays.copyOf(drawnCells, cells);
+            cellXs = Arrays.copyOf(cellXs, cells);
+            cellYs = Arrays.copyOf(cellYs, cells);
+            cellTranslates = Arrays.copyOf(cellTranslates, cells);
+            cellSizes = Arrays.copyOf(cellSizes, cells);
+            cellAlphas = Arrays.copyOf(cellAlphas, cells);
+            cellInPattern = Arrays.copyOf(cellInPattern, cells);
+            cellAnimating = Arrays.copyOf(cellAnimating, cells);
+            pattern = Arrays.copyOf(pattern, cells);
+            lineStartXs = Arrays.copyOf(lineStartXs, cells);
+            lineStartYs = Arrays.copyOf(lineStartYs, cells);
+            lineEndXs = Arrays.copyOf(lineEndXs, cells);
+            lineEndYs = Arrays.copyOf(lineEndYs, cells);
+        }
+    }
+
+    void setDirty(DirtyRegion dirty) {
+        dirtyFull = dirty.isFull();
+        if (!dirtyFull) {
+            dirtyLeft = dirty.getLeft();
+            dirtyTop = dirty.getTop();
+            dirtyRight = dirty.getRight();
+            dirtyBottom = dirty.getBottom();
+        }
+    }
+}
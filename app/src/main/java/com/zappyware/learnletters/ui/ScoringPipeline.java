@@ -0,0 +1,233 @@
+package com.zappyware.learnletters.ui;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+
+import com.zappyware.learnletters.concurrent.SpscEventQueue;
+import com.zappyware.learnletters.concurrent.TripleBuffer;
+import com.zappyware.learnletters.entities.Letter;
+import com.zappyware.learnletters.recognition.IncrementalScorer;
+import com.zappyware.learnletters.recognition.ScoreReport;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Scores strokes on a worker thread. {@link LetterView} publishes its touch samples
+ * and cell hits into a lock-free queue; the worker drains them in batches, feeds an
+ * {@link IncrementalScorer} and posts one report per batch back to the UI thread. The
+ * touch handler only writes a few array slots per sample, so grading costs it no
+ * latency however heavy it gets. If the worker falls far behind, samples are dropped
+ * and counted rather than blocking touch handling.
+ *
+ * <p>Create it on the UI thread and {@link #quit()} it when done.
+ */
+public class ScoringPipeline {
+
+    /**
+     * Receives reports on the UI thread, in stroke order: a stroke's progress never
+     * follows its finished report or one of a later stroke. Reports are reused; copy one
+     * to keep it.
+     */
+    public interface Listener {
+        /** Progress of the current stroke. Intermediate reports may be skipped. */
+        void onStrokeProgress(ScoreReport report);
+
+        /** Called once for every stroke that ended, even if several end at once. */
+        void onStrokeFinished(ScoreReport report);
+    }
+
+    private static final int EVENT_START = 0;
+    private static final int EVENT_SAMPLE = 1;
+    private static final int EVENT_CELL = 2;
+    private static final int EVENT_END = 3;
+    /** The next letter of {@link #mLetters} replaces the scored one. */
+    private static final int EVENT_LETTER = 4;
+
+    private static final int QUEUE_CAPACITY = 2048;
+    private static final int DRAIN_BATCH = 256;
+
+    private final Listener mListener;
+    private final SpscEventQueue mQueue = new SpscEventQueue(QUEUE_CAPACITY);
+    /** Letters waiting for their EVENT_LETTER, which cannot carry an object. */
+    private final ConcurrentLinkedQueue<Letter> mLetters = new ConcurrentLinkedQueue<>();
+    private final Thread mWorker;
+    private volatile boolean mRunning = true;
+
+    /** Producer side: events dropped since the stroke started. */
+    private int mDropped;
+    /** Producer side: letters whose event did not fit in the queue yet. */
+    private int mUnsentLetters;
+
+    private final TripleBuffer<ScoreReport> mProgress = new TripleBuffer<>(
+            new ScoreReport(), new ScoreReport(), new ScoreReport());
+    /**
+     * Finished reports are queued rather than buffered, so none is lost when several
+     * strokes end in one batch. Delivered ones go back to the worker through the pool.
+     */
+    private final ConcurrentLinkedQueue<ScoreReport> mFinished = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<ScoreReport> mFreeReports = new ConcurrentLinkedQueue<>();
+    /** UI thread: the last stroke whose finished report was delivered. */
+    private long mLastFinishedStrokeId;
+    private final AtomicBoolean mDeliveryPosted = new AtomicBoolean();
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mDeliver = new Runnable() {
+        @Override
+        public void run() {
+            mDeliveryPosted.set(false);
+            // Finished reports first: the progress buffer may already hold a later
+            // stroke's progress, which must not arrive before them.
+            ScoreReport finished;
+            while ((finished = mFinished.poll()) != null) {
+                mLastFinishedStrokeId = finished.strokeId;
+                mListener.onStrokeFinished(finished);
+                mFreeReports.add(finished);
+            }
+            if (mProgress.take()) {
+                final ScoreReport progress = mProgress.getFront();
+                // Progress of a stroke that has been reported finished is stale.
+                if (progress.strokeId > mLastFinishedStrokeId) {
+                    mListener.onStrokeProgress(progress);
+                }
+            }
+        }
+    };
+
+    public ScoringPipeline(Listener listener) {
+        mListener = listener;
+        mWorker = new Thread(new Worker(), "LetterScoring");
+        mWorker.start();
+    }
+
+    /**
+     * UI thread: stops the worker. Reports already posted are still delivered.
+     */
+    public void quit() {
+        mRunning = false;
+        LockSupport.unpark(mWorker);
+    }
+
+    /**
+     * Scores the following strokes against {@code letter}. A stroke in progress is
+     * abandoned.
+     */
+    void setLetter(Letter letter) {
+        mLetters.add(letter);
+        mUnsentLetters++;
+        sendLetters();
+        LockSupport.unpark(mWorker);
+    }
+
+    void strokeStarted(float x, float y, long time) {
+        mDropped = 0;
+        offer(EVENT_START, 0f, 0f, time, 0);
+        offer(EVENT_SAMPLE, x, y, time, 0);
+    }
+
+    void sample(float x, float y, long time) {
+        offer(EVENT_SAMPLE, x, y, time, 0);
+    }
+
+    void cellAdded(int cell) {
+        offer(EVENT_CELL, 0f, 0f, 0L, cell);
+    }
+
+    void strokeEnded(long time) {
+        offer(EVENT_END, 0f, 0f, time, mDropped);
+    }
+
+    /**
+     * Wakes the worker for the events offered so far. Called once per touch event
+     * rather than per sample.
+     */
+    void flush() {
+        LockSupport.unpark(mWorker);
+    }
+
+    /**
+     * Events must not overtake a letter change, so while one is still unsent the
+     * others are dropped.
+     */
+    private void offer(int type, float x, float y, long time, int arg) {
+        if (!sendLetters() || !mQueue.offer(type, x, y, time, arg)) {
+            mDropped++;
+        }
+    }
+
+    /**
+     * @return whether every letter change is in the queue
+     */
+    private boolean sendLetters() {
+        while (mUnsentLetters > 0) {
+            if (!mQueue.offer(EVENT_LETTER, 0f, 0f, 0L, 0)) {
+                return false;
+            }
+            mUnsentLetters--;
+        }
+        return true;
+    }
+
+    private final class Worker implements Runnable, SpscEventQueue.EventSink {
+
+        private final IncrementalScorer mScorer = new IncrementalScorer();
+        private boolean mInStroke;
+
+        @Override
+        public void run() {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            while (mRunning) {
+                if (mQueue.drain(this, DRAIN_BATCH) == 0) {
+                    LockSupport.park(this);
+                } else if (mInStroke) {
+                    mScorer.report(mProgress.getBack());
+                    mProgress.publish();
+                    postDelivery();
+                }
+            }
+        }
+
+        @Override
+        public void onEvent(int type, float x, float y, long time, int arg) {
+            if (!mInStroke && type != EVENT_START && type != EVENT_LETTER) {
+                // The rest of a stroke abandoned by a letter change.
+                return;
+            }
+            switch (type) {
+                case EVENT_LETTER:
+                    mScorer.setLetter(mLetters.poll());
+                    mInStroke = false;
+                    break;
+                case EVENT_START:
+                    mScorer.start();
+                    mInStroke = true;
+                    break;
+                case EVENT_SAMPLE:
+                    mScorer.addSample(x, y, time);
+                    break;
+                case EVENT_CELL:
+                    mScorer.addCell(arg);
+                    break;
+                case EVENT_END:
+                    mScorer.addDropped(arg);
+                    mScorer.finish();
+                    mInStroke = false;
+                    ScoreReport report = mFreeReports.poll();
+                    if (report == null) {
+                        report = new ScoreReport();
+                    }
+                    mScorer.report(report);
+                    mFinished.add(report);
+                    postDelivery();
+                    break;
+            }
+        }
+
+        private void postDelivery() {
+            if (mDeliveryPosted.compareAndSet(false, true)) {
+                mMainHandler.post(mDeliver);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.zappyware.learnletters.benchmark;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Replays recorded strokes and fails if the warmed-up touch path allocates. Needs a
+ * HotSpot VM for per-thread allocation counters.
+ */
+public final class AllocationCheck {
+
+    private static final int WARMUP_STROKES = 5000;
+    private static final int MEASURED_STROKES = 1000;
+
+    private AllocationCheck() {
+    }
+
+    public static void main(String[] args) {
+        final com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long thread = Thread.currentThread().getId();
+        final TouchReplay replay = new TouchReplay(64);
+
+        int hits = 0;
+        for (int i = 0; i < WARMUP_STROKES; i++) {
+            hits += replay.replay();
+        }
+
+        // Reading the counter can allocate itself; measure that and subtract it.
+        final long first = threads.getThreadAllocatedBytes(thread);
+        final long overhead = threads.getThreadAllocatedBytes(thread) - first;
+
+        final long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < MEASURED_STROKES; i++) {
+            hits += replay.replay();
+        }
+        final long allocated = threads.getThreadAllocatedBytes(thread) - before - overhead;
+
+        final long events = (long) MEASURED_STROKES * replay.eventCount();
+        System.out.println("replayed " + events + " move events (" + hits + " hits), "
+                + allocated + " bytes allocated");
+        if (allocated > 0) {
+            System.err.println("touch path allocates "
+                    + (double) allocated / events + " bytes per move event");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.zappyware.learnletters.benchmark;
+
+import com.zappyware.learnletters.entities.Letter;
+import com.zappyware.learnletters.geometry.DistanceField;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deviation of a touch sample from the letter: the distance field lookup against the
+ * polyline scan it replaced, and the one-off cost of building the field.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DistanceFieldBenchmark {
+
+    private static final int QUERIES = 1024;
+    private static final int VIEW_SIZE = 1080;
+    private static final int NODES = 136;
+
+    @Param({"16", "128", "1024"})
+    public int pointCount;
+
+    private Letter mLetter;
+    private final DistanceField mField = new DistanceField();
+    private final float[] mQueryXs = new float[QUERIES];
+    private final float[] mQueryYs = new float[QUERIES];
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(Fixtures.SEED);
+        mLetter = Fixtures.stroke(random, pointCount);
+        mField.build(mLetter, VIEW_SIZE, VIEW_SIZE, NODES, NODES);
+        for (int i = 0; i < QUERIES; i++) {
+            mQueryXs[i] = random.nextFloat();
+            mQueryYs[i] = random.nextFloat();
+        }
+    }
+
+    @Benchmark
+    public float fieldLookup() {
+        final int i = mNext++ & (QUERIES - 1);
+        return mField.distanceAt(mQueryXs[i], mQueryYs[i]);
+    }
+
+    @Benchmark
+    public float polylineScan() {
+        final int i = mNext++ & (QUERIES - 1);
+        final float x = mQueryXs[i] * VIEW_SIZE;
+        final float y = mQueryYs[i] * VIEW_SIZE;
+        float best = Float.POSITIVE_INFINITY;
+        for (int index = 1; index < mLetter.size(); index++) {
+            final float ax = mLetter.getX(index - 1) * VIEW_SIZE;
+            final float ay = mLetter.getY(index - 1) * VIEW_SIZE;
+            final float dx = mLetter.getX(index) * VIEW_SIZE - ax;
+            final float dy = mLetter.getY(index) * VIEW_SIZE - ay;
+            final float lengthSquared = dx * dx + dy * dy;
+            float t = lengthSquared > 0f ? ((x - ax) * dx + (y - ay) * dy) / lengthSquared : 0f;
+            t = Math.max(0f, Math.min(1f, t));
+            final float ex = x - (ax + t * dx);
+            final float ey = y - (ay + t * dy);
+            best = Math.min(best, (float) Math.sqrt(ex * ex + ey * ey));
+        }
+        return best;
+    }
+
+    @Benchmark
+    public DistanceField build() {
+        mField.build(mLetter, VIEW_SIZE, VIEW_SIZE, NODES, NODES);
+        return mField;
+    }
+}
@@ -0,0 +1,61 @@
+package com.zappyware.learnletters.benchmark;
+
+import com.zappyware.learnletters.entities.Letter;
+import com.zappyware.learnletters.recognition.StrokeRecognizer;
+import com.zappyware.learnletters.recognition.StrokeTemplate;
+
+import java.util.Random;
+
+/**
+ * Deterministic inputs shared by the benchmarks, so runs on different machines
+ * measure the same work.
+ */
+final class Fixtures {
+
+    static final long SEED = 0x4C4C;
+
+    private Fixtures() {
+    }
+
+    /**
+     * A random walk of {@code count} points in normalized coordinates, shaped roughly
+     * like a hand-drawn stroke.
+     */
+    static Letter stroke(Random random, int count) {
+        final Letter letter = new Letter(count);
+        float x = random.nextFloat();
+        float y = random.nextFloat();
+        final float step = Math.max(0.01f, 2f / count);
+        for (int i = 0; i < count; i++) {
+            x = clamp(x + (random.nextFloat() - 0.5f) * step);
+            y = clamp(y + (random.nextFloat() - 0.5f) * step);
+            letter.add(x, y);
+        }
+        return letter;
+    }
+
+    /**
+     * {@code count} points spread uniformly over the view, like the dots of a letter
+     * shown to be traced.
+     */
+    static Letter dots(Random random, int count) {
+        final Letter letter = new Letter(count);
+        for (int i = 0; i < count; i++) {
+            letter.add(random.nextFloat(), random.nextFloat());
+        }
+        return letter;
+    }
+
+    static StrokeTemplate[] templates(Random random, int count) {
+        final StrokeTemplate[] templates = new StrokeTemplate[count];
+        for (int i = 0; i < count; i++) {
+            templates[i] = StrokeTemplate.of("t" + i, stroke(random, 8 + random.nextInt(24)),
+                    StrokeRecognizer.DEFAULT_SAMPLE_COUNT);
+        }
+        return templates;
+    }
+
+    private static float clamp(float value) {
+        return Math.max(0f, Math.min(1f, value));
+    }
+}
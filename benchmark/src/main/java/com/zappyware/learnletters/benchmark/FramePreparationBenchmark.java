@@ -0,0 +1,85 @@
+package com.zappyware.learnletters.benchmark;
+
+import com.zappyware.learnletters.animation.Easing;
+import com.zappyware.learnletters.animation.PlaybackTimeline;
+import com.zappyware.learnletters.animation.TweenScheduler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The per-frame work LetterView does before drawing: moving the playback timeline in
+ * Animate mode, and advancing the cell tweens while the user draws.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FramePreparationBenchmark {
+
+    private static final long FRAME_NANOS = 16666667L;
+    private static final long MILLI = 1000000L;
+
+    @Param({"26", "200"})
+    public int cellCount;
+
+    private final PlaybackTimeline mPlayback = new PlaybackTimeline(700);
+    private TweenScheduler mTweens;
+    private float[] mSizes;
+    private float[] mLineEnds;
+    private long mNow;
+
+    @Setup
+    public void setUp() {
+        mSizes = new float[cellCount];
+        mLineEnds = new float[cellCount];
+        mTweens = new TweenScheduler(new TweenScheduler.Listener() {
+            @Override
+            public void onTweenUpdate(int target, int property, float value) {
+                if (property == 0) {
+                    mSizes[target] = value;
+                } else {
+                    mLineEnds[target] = value;
+                }
+            }
+
+            @Override
+            public void onTweenEnd(int target, int property) {
+            }
+        });
+        mTweens.ensureCapacity(cellCount * 3);
+        mPlayback.reset(cellCount, 0L);
+        mPlayback.play(0L);
+    }
+
+    @Benchmark
+    public float playbackFrame() {
+        mNow += FRAME_NANOS;
+        mPlayback.update(mNow);
+        return mPlayback.getVisibleCount() + mPlayback.getSegmentFraction();
+    }
+
+    @Benchmark
+    public boolean tweenFrame() {
+        mNow += FRAME_NANOS;
+        if (!mTweens.advance(mNow)) {
+            // Same three tweens LetterView starts for an activated cell.
+            for (int cell = 0; cell < cellCount; cell++) {
+                mTweens.schedule(cell, 0, 24f, 36f, mNow, 0L, 96 * MILLI,
+                        Easing.FAST_OUT_SLOW_IN);
+                mTweens.schedule(cell, 0, 36f, 24f, mNow, 96 * MILLI, 192 * MILLI,
+                        Easing.FAST_OUT_SLOW_IN);
+                mTweens.schedule(cell, 1, 0f, 1f, mNow, 0L, 100 * MILLI,
+                        Easing.LINEAR_OUT_SLOW_IN);
+            }
+        }
+        return mTweens.isRunning();
+    }
+}
@@ -0,0 +1,89 @@
+package com.zappyware.learnletters.benchmark;
+
+import com.zappyware.learnletters.entities.Letter;
+import com.zappyware.learnletters.geometry.PointGridIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LetterView.checkForNewHit: the grid lookup against the linear scan it replaced, and
+ * the swept test along a fast-swipe segment between two samples.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HitTestBenchmark {
+
+    private static final int QUERIES = 1024;
+
+    /** Hit box half extent of a 24 px dot on a 1080 px view, as a fraction of the view. */
+    private static final float HALF_HIT = 24f * 4f / 1080f;
+
+    @Param({"16", "128", "1024"})
+    public int pointCount;
+
+    private Letter mLetter;
+    private final PointGridIndex mIndex = new PointGridIndex();
+    private final float[] mQueryXs = new float[QUERIES];
+    private final float[] mQueryYs = new float[QUERIES];
+    private final int[] mSegmentHits = new int[1024];
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(Fixtures.SEED);
+        mLetter = Fixtures.stroke(random, pointCount);
+        mIndex.build(mLetter, HALF_HIT, HALF_HIT);
+        for (int i = 0; i < QUERIES; i++) {
+            mQueryXs[i] = random.nextFloat();
+            mQueryYs[i] = random.nextFloat();
+        }
+    }
+
+    @Benchmark
+    public int gridQuery() {
+        final int i = mNext++ & (QUERIES - 1);
+        return mIndex.query(mQueryXs[i], mQueryYs[i]);
+    }
+
+    /** A segment of a tenth of the view, as between two samples of a fast swipe. */
+    @Benchmark
+    public int segmentQuery() {
+        final int i = mNext++ & (QUERIES - 1);
+        final float x = mQueryXs[i];
+        final float y = mQueryYs[i];
+        return mIndex.querySegment(x, y, x + 0.1f, y + 0.05f, mSegmentHits);
+    }
+
+    @Benchmark
+    public int linearScan() {
+        final int i = mNext++ & (QUERIES - 1);
+        final float x = mQueryXs[i];
+        final float y = mQueryYs[i];
+        final int count = mLetter.size();
+        for (int index = 0; index < count; index++) {
+            final float dx = x - mLetter.getX(index);
+            final float dy = y - mLetter.getY(index);
+            if (dx >= -HALF_HIT && dx < HALF_HIT && dy >= -HALF_HIT && dy < HALF_HIT) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    @Benchmark
+    public PointGridIndex build() {
+        mIndex.build(mLetter, HALF_HIT, HALF_HIT);
+        return mIndex;
+    }
+}
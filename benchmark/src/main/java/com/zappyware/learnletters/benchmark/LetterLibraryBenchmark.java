@@ -0,0 +1,77 @@
+package com.zappyware.learnletters.benchmark;
+
+import com.zappyware.learnletters.entities.Letter;
+import com.zappyware.learnletters.io.LetterLibrary;
+import com.zappyware.learnletters.io.LetterLibraryWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup cost of the letter library: mapping the file alone, which should not grow
+ * with the letter count, mapping it and finding one letter by name, and decoding every
+ * letter for an alphabet overview.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LetterLibraryBenchmark {
+
+    @Param({"26", "500", "5000"})
+    public int letterCount;
+
+    private File mFile;
+    private String mLastName;
+
+    @Setup
+    public void setUp() throws IOException {
+        final Random random = new Random(Fixtures.SEED);
+        final LetterLibraryWriter writer = new LetterLibraryWriter();
+        for (int i = 0; i < letterCount; i++) {
+            writer.add("letter" + i, Fixtures.stroke(random, 16 + random.nextInt(48)));
+        }
+        mLastName = "letter" + (letterCount - 1);
+        mFile = File.createTempFile("letters", ".lib");
+        writer.writeTo(mFile);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (!mFile.delete()) {
+            mFile.deleteOnExit();
+        }
+    }
+
+    @Benchmark
+    public LetterLibrary open() throws IOException {
+        return LetterLibrary.open(mFile);
+    }
+
+    @Benchmark
+    public Letter openAndFind() throws IOException {
+        final LetterLibrary library = LetterLibrary.open(mFile);
+        return library.getLetter(library.indexOf(mLastName));
+    }
+
+    @Benchmark
+    public int openAndDecodeAll() throws IOException {
+        final LetterLibrary library = LetterLibrary.open(mFile);
+        int points = 0;
+        for (int i = 0; i < library.size(); i++) {
+            points += library.getLetter(i).size();
+        }
+        return points;
+    }
+}
@@ -0,0 +1,73 @@
+package com.zappyware.learnletters.benchmark;
+
+import com.zappyware.learnletters.entities.Letter;
+import com.zappyware.learnletters.io.PatternCodec;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saved-state serialization of a pattern, into reused and into fresh buffers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PatternCodecBenchmark {
+
+    @Param({"16", "256", "4096"})
+    public int pointCount;
+
+    private Letter mLetter;
+    private byte[] mBuffer;
+    private byte[] mEncoded;
+    private final Letter mDecoded = new Letter();
+
+    @Setup
+    public void setUp() {
+        mLetter = Fixtures.stroke(new Random(Fixtures.SEED), pointCount);
+        mBuffer = new byte[PatternCodec.maxEncodedSize(pointCount)];
+        mEncoded = PatternCodec.encode(mLetter);
+
+        // The round trip is lossy only within the 16-bit quantization step.
+        final Letter check = PatternCodec.decode(mEncoded);
+        for (int i = 0; i < pointCount; i++) {
+            final int x = PatternCodec.quantize(mLetter.getX(i));
+            final int y = PatternCodec.quantize(mLetter.getY(i));
+            if (PatternCodec.quantize(check.getX(i)) != x
+                    || PatternCodec.quantize(check.getY(i)) != y) {
+                throw new IllegalStateException("round trip changed point " + i);
+            }
+        }
+    }
+
+    @Benchmark
+    public int encodeInto() {
+        return PatternCodec.encode(mLetter, mBuffer, 0);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return PatternCodec.encode(mLetter);
+    }
+
+    @Benchmark
+    public Letter decodeInto() {
+        mDecoded.clear();
+        PatternCodec.decode(mEncoded, 0, mEncoded.length, mDecoded);
+        return mDecoded;
+    }
+
+    @Benchmark
+    public Letter decode() {
+        return PatternCodec.decode(mEncoded);
+    }
+}
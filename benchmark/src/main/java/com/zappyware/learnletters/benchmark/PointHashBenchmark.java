@@ -0,0 +1,64 @@
+package com.zappyware.learnletters.benchmark;
+
+import com.zappyware.learnletters.entities.Point;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point hashing on lattice coordinates, the values letters are usually drawn on and
+ * the ones most likely to collide. A poorly spread hash shows up as slow set
+ * inserts and a low intern hit rate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PointHashBenchmark {
+
+    @Param({"16", "64"})
+    public int latticeSize;
+
+    private Point[] mPoints;
+    private float[] mXs;
+    private float[] mYs;
+
+    @Setup
+    public void setUp() {
+        final int count = latticeSize * latticeSize;
+        mPoints = new Point[count];
+        mXs = new float[count];
+        mYs = new float[count];
+        for (int i = 0; i < count; i++) {
+            mXs[i] = (i % latticeSize) / (float) (latticeSize - 1);
+            mYs[i] = (i / latticeSize) / (float) (latticeSize - 1);
+            mPoints[i] = Point.of(mXs[i], mYs[i]);
+        }
+    }
+
+    @Benchmark
+    public int hashSetInsert() {
+        final HashSet<Point> set = new HashSet<>(mPoints.length * 2);
+        for (Point point : mPoints) {
+            set.add(point);
+        }
+        return set.size();
+    }
+
+    @Benchmark
+    public int intern() {
+        int hash = 0;
+        for (int i = 0; i < mXs.length; i++) {
+            hash += System.identityHashCode(Point.interned(mXs[i], mYs[i]));
+        }
+        return hash;
+    }
+}
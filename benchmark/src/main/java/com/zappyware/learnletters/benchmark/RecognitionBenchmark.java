@@ -0,0 +1,86 @@
+package com.zappyware.learnletters.benchmark;
+
+import com.zappyware.learnletters.entities.Letter;
+import com.zappyware.learnletters.recognition.StrokeRecognizer;
+import com.zappyware.learnletters.recognition.StrokeTemplate;
+import com.zappyware.learnletters.recognition.TemplateIndex;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Grading a trace against the current letter, and classifying it against a whole
+ * alphabet with and without the {@link TemplateIndex}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecognitionBenchmark {
+
+    private static final int TRACES = 64;
+    private static final int TRACE_POINTS = 120;
+
+    @Param({"26", "500", "5000"})
+    public int templateCount;
+
+    private StrokeTemplate[] mTemplates;
+    private TemplateIndex mIndex;
+    private final StrokeRecognizer mRecognizer = new StrokeRecognizer();
+    private final Letter[] mTraces = new Letter[TRACES];
+    private final int[] mIndices = new int[5];
+    private final float[] mDistances = new float[5];
+    private int mNext;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(Fixtures.SEED);
+        mTemplates = Fixtures.templates(random, templateCount);
+        mIndex = new TemplateIndex(mTemplates);
+        for (int i = 0; i < TRACES; i++) {
+            mTraces[i] = Fixtures.stroke(random, TRACE_POINTS);
+        }
+
+        for (Letter trace : mTraces) {
+            final int expected = mRecognizer.recognize(mTemplates, trace, 1f, 1f);
+            if (mIndex.search(trace, 1f, 1f, 1, mIndices, mDistances) != 1
+                    || mRecognizer.distance(mTemplates[mIndices[0]], Float.POSITIVE_INFINITY)
+                    != mRecognizer.distance(mTemplates[expected], Float.POSITIVE_INFINITY)) {
+                throw new IllegalStateException("index disagrees with the linear scan");
+            }
+        }
+    }
+
+    private Letter nextTrace() {
+        return mTraces[mNext++ & (TRACES - 1)];
+    }
+
+    @Benchmark
+    public float scoreOne() {
+        return mRecognizer.score(mTemplates[0], nextTrace(), 1f, 1f);
+    }
+
+    @Benchmark
+    public int linearTop1() {
+        return mRecognizer.recognize(mTemplates, nextTrace(), 1f, 1f);
+    }
+
+    @Benchmark
+    public int indexTop1() {
+        mIndex.search(nextTrace(), 1f, 1f, 1, mIndices, mDistances);
+        return mIndices[0];
+    }
+
+    @Benchmark
+    public int indexTop5() {
+        return mIndex.search(nextTrace(), 1f, 1f, 5, mIndices, mDistances);
+    }
+}
@@ -0,0 +1,158 @@
+package com.zappyware.learnletters.benchmark;
+
+import com.zappyware.learnletters.animation.Easing;
+import com.zappyware.learnletters.animation.TweenScheduler;
+import com.zappyware.learnletters.entities.Letter;
+import com.zappyware.learnletters.entities.StrokeBuffer;
+import com.zappyware.learnletters.geometry.PointGridIndex;
+import com.zappyware.learnletters.geometry.StrokeFilter;
+
+import java.util.Random;
+
+/**
+ * Replays a recorded stroke through the same pure Java steps LetterView runs per move
+ * event: record the raw sample, filter and resample it, hit test the segment to each
+ * filtered sample, add the cells it crossed to the pattern with their activation
+ * tweens, and advance the tweens once per frame. No pattern listener is set, as in a
+ * view nobody observes.
+ */
+final class TouchReplay {
+
+    private static final float VIEW_SIZE = 1080f;
+    private static final float HALF_HIT = 12f * 4f / VIEW_SIZE;
+    private static final long MILLI = 1000000L;
+    private static final long EVENT_NANOS = 8 * MILLI;
+    private static final int EVENTS_PER_POINT = 24;
+    /** The letter_stroke_sample_spacing of 2dp on a 420 dpi screen. */
+    private static final float SAMPLE_SPACING = 5.25f;
+
+    private final Letter mLetter;
+    private final PointGridIndex mIndex = new PointGridIndex();
+    private final StrokeBuffer mStroke = new StrokeBuffer(256, 4096);
+    private final StrokeFilter mFilter = new StrokeFilter(SAMPLE_SPACING);
+    private final TweenScheduler mTweens;
+    private final boolean[] mDrawn;
+    private final int[] mPattern;
+    private int mPatternSize;
+    private final int[] mSegmentHits;
+    private float mLastSampleX;
+    private float mLastSampleY;
+    private long mNow;
+    private final StrokeFilter.SampleSink mFilteredSamples = new StrokeFilter.SampleSink() {
+        @Override
+        public void onSample(float x, float y, long time) {
+            addSegmentHits(x, y);
+        }
+    };
+    private final float[] mSizes;
+    private final float[] mLineEnds;
+
+    private final float[] mEventXs;
+    private final float[] mEventYs;
+
+    TouchReplay(int pointCount) {
+        final Random random = new Random(Fixtures.SEED);
+        mLetter = Fixtures.dots(random, pointCount);
+        mIndex.build(mLetter, HALF_HIT, HALF_HIT);
+        mDrawn = new boolean[pointCount];
+        mPattern = new int[pointCount];
+        mSegmentHits = new int[pointCount];
+        mSizes = new float[pointCount];
+        mLineEnds = new float[pointCount];
+        mTweens = new TweenScheduler(new TweenScheduler.Listener() {
+            @Override
+            public void onTweenUpdate(int target, int property, float value) {
+                if (property == 0) {
+                    mSizes[target] = value;
+                } else {
+                    mLineEnds[target] = value;
+                }
+            }
+
+            @Override
+            public void onTweenEnd(int target, int property) {
+            }
+        });
+        mTweens.ensureCapacity(pointCount * 3);
+
+        // Move events along the letter in view pixels, with a little finger jitter.
+        final int events = (pointCount - 1) * EVENTS_PER_POINT + 1;
+        mEventXs = new float[events];
+        mEventYs = new float[events];
+        for (int e = 0; e < events; e++) {
+            final int i = Math.min(e / EVENTS_PER_POINT, pointCount - 2);
+            final float t = (e - i * EVENTS_PER_POINT) / (float) EVENTS_PER_POINT;
+            final float x = mLetter.getX(i) + t * (mLetter.getX(i + 1) - mLetter.getX(i));
+            final float y = mLetter.getY(i) + t * (mLetter.getY(i + 1) - mLetter.getY(i));
+            mEventXs[e] = (x + (random.nextFloat() - 0.5f) * 0.005f) * VIEW_SIZE;
+            mEventYs[e] = (y + (random.nextFloat() - 0.5f) * 0.005f) * VIEW_SIZE;
+        }
+    }
+
+    int eventCount() {
+        return mEventXs.length;
+    }
+
+    /**
+     * Replays the whole stroke from touch down to touch up.
+     *
+     * @return the number of cells hit
+     */
+    int replay() {
+        mStroke.clear();
+        for (int i = 0; i < mDrawn.length; i++) {
+            mDrawn[i] = false;
+        }
+        mPatternSize = 0;
+
+        // Touch down: the first sample is hit tested on its own.
+        mNow = 0L;
+        final float downX = mEventXs[0];
+        final float downY = mEventYs[0];
+        mStroke.add(downX, downY, 0L, 1f);
+        mFilter.start(downX, downY, 0L);
+        mLastSampleX = downX;
+        mLastSampleY = downY;
+        final int downCell = mIndex.query(downX / VIEW_SIZE, downY / VIEW_SIZE);
+        if (downCell >= 0) {
+            addCellToPattern(downCell);
+        }
+
+        for (int e = 1; e < mEventXs.length; e++) {
+            mNow += EVENT_NANOS;
+            final float x = mEventXs[e];
+            final float y = mEventYs[e];
+            final long time = mNow / MILLI;
+            mStroke.add(x, y, time, 1f);
+            mFilter.add(x, y, time, mFilteredSamples);
+            if ((e & 1) == 1) {
+                mTweens.advance(mNow);
+            }
+        }
+        mFilter.finish(mFilteredSamples);
+        mTweens.finishAll(-1);
+        return mPatternSize;
+    }
+
+    private void addSegmentHits(float x, float y) {
+        final int count = mIndex.querySegment(mLastSampleX / VIEW_SIZE, mLastSampleY / VIEW_SIZE,
+                x / VIEW_SIZE, y / VIEW_SIZE, mSegmentHits);
+        mLastSampleX = x;
+        mLastSampleY = y;
+        for (int i = 0; i < count; i++) {
+            final int cell = mSegmentHits[i];
+            if (!mDrawn[cell]) {
+                addCellToPattern(cell);
+            }
+        }
+    }
+
+    private void addCellToPattern(int cell) {
+        mDrawn[cell] = true;
+        mPattern[mPatternSize++] = cell;
+        mTweens.schedule(cell, 0, 24f, 36f, mNow, 0L, 96 * MILLI, Easing.FAST_OUT_SLOW_IN);
+        mTweens.schedule(cell, 0, 36f, 24f, mNow, 96 * MILLI, 192 * MILLI,
+                Easing.FAST_OUT_SLOW_IN);
+        mTweens.schedule(cell, 1, 0f, 1f, mNow, 0L, 100 * MILLI, Easing.LINEAR_OUT_SLOW_IN);
+    }
+}
@@ -0,0 +1,37 @@
+package com.zappyware.learnletters.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A whole stroke through the touch path. Run with {@code -prof gc}: the normalized
+ * allocation rate should stay at zero.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class TouchReplayBenchmark {
+
+    @Param({"16", "64"})
+    public int pointCount;
+
+    private TouchReplay mReplay;
+
+    @Setup
+    public void setUp() {
+        mReplay = new TouchReplay(pointCount);
+    }
+
+    @Benchmark
+    public int replayStroke() {
+        return mReplay.replay();
+    }
+}
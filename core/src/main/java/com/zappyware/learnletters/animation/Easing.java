@@ -0,0 +1,82 @@
+package com.zappyware.learnletters.animation;
+
+/**
+ * Maps linear animation progress in [0, 1] to eased progress. Pure Java counterpart
+ * of the platform interpolators, so tweens can run and be tested off-device.
+ */
+public abstract class Easing {
+
+    public static final Easing LINEAR = new Easing() {
+        @Override
+        public float ease(float t) {
+            return t;
+        }
+    };
+
+    /** Same curve as {@code android.R.interpolator.fast_out_slow_in}. */
+    public static final Easing FAST_OUT_SLOW_IN = cubicBezier(0.4f, 0f, 0.2f, 1f);
+
+    /** Same curve as {@code android.R.interpolator.linear_out_slow_in}. */
+    public static final Easing LINEAR_OUT_SLOW_IN = cubicBezier(0f, 0f, 0.2f, 1f);
+
+    public abstract float ease(float t);
+
+    public static Easing cubicBezier(float x1, float y1, float x2, float y2) {
+        return new CubicBezier(x1, y1, x2, y2);
+    }
+
+    /**
+     * Cubic bezier from (0, 0) to (1, 1), sampled once into a lookup table so that
+     * {@link #ease(float)} is a table read and a lerp.
+     */
+    private static final class CubicBezier extends Easing {
+
+        private static final int SAMPLES = 128;
+
+        private final float[] mValues = new float[SAMPLES + 1];
+
+        private CubicBezier(float x1, float y1, float x2, float y2) {
+            for (int i = 0; i <= SAMPLES; i++) {
+                final float x = (float) i / SAMPLES;
+                mValues[i] = bezier(solveForX(x, x1, x2), y1, y2);
+            }
+        }
+
+        @Override
+        public float ease(float t) {
+            if (t <= 0f) {
+                return 0f;
+            } else if (t >= 1f) {
+                return 1f;
+            }
+            final float position = t * SAMPLES;
+            final int index = (int) position;
+            final float fraction = position - index;
+            return mValues[index] + (mValues[index + 1] - mValues[index]) * fraction;
+        }
+
+        private static float solveForX(float x, float x1, float x2) {
+            float low = 0f;
+            float high = 1f;
+            float t = x;
+            for (int i = 0; i < 24; i++) {
+                final float current = bezier(t, x1, x2);
+                if (Math.abs(current - x) < 1e-6f) {
+                    break;
+                }
+                if (current < x) {
+                    low = t;
+                } else {
+                    high = t;
+                }
+                t = (low + high) * 0.5f;
+            }
+            return t;
+        }
+
+        private static float bezier(float t, float p1, float p2) {
+            final float u = 1f - t;
+            return 3f * u * u * t * p1 + 3f * u * t * t * p2 + t * t * t;
+        }
+    }
+}
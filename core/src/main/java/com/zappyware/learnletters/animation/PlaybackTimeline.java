@@ -0,0 +1,134 @@
+package com.zappyware.learnletters.animation;
+
+/**
+ * Clock for replaying a pattern one cell at a time. A cycle shows 0, 1, ... n cells,
+ * each for {@code millisPerCell}, and then starts over. The position only advances
+ * while playing, scaled by the playback speed.
+ */
+public class PlaybackTimeline {
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private final int mMillisPerCell;
+
+    private int mCellCount;
+    private double mPositionMillis;
+    private float mSpeed = 1f;
+    private boolean mPlaying;
+    private long mLastUpdateNanos;
+
+    public PlaybackTimeline(int millisPerCell) {
+        mMillisPerCell = millisPerCell;
+    }
+
+    /**
+     * Restarts the cycle from an empty pattern of {@code cellCount} cells.
+     */
+    public void reset(int cellCount, long nowNanos) {
+        mCellCount = cellCount;
+        mPositionMillis = 0;
+        mLastUpdateNanos = nowNanos;
+    }
+
+    public void play(long nowNanos) {
+        if (!mPlaying) {
+            mPlaying = true;
+            mLastUpdateNanos = nowNanos;
+        }
+    }
+
+    public void pause(long nowNanos) {
+        if (mPlaying) {
+            update(nowNanos);
+            mPlaying = false;
+        }
+    }
+
+    public boolean isPlaying() {
+        return mPlaying;
+    }
+
+    public void seek(long positionMillis, long nowNanos) {
+        mPositionMillis = wrap(positionMillis);
+        mLastUpdateNanos = nowNanos;
+    }
+
+    public void setSpeed(float speed, long nowNanos) {
+        if (!(speed > 0f)) {
+            throw new IllegalArgumentException("playback speed must be positive: " + speed);
+        }
+        update(nowNanos);
+        mSpeed = speed;
+    }
+
+    public float getSpeed() {
+        return mSpeed;
+    }
+
+    public void update(long nowNanos) {
+        if (mPlaying) {
+            mPositionMillis = wrap(mPositionMillis
+                    + (nowNanos - mLastUpdateNanos) / NANOS_PER_MILLI * mSpeed);
+        }
+        mLastUpdateNanos = nowNanos;
+    }
+
+    public long getCycleMillis() {
+        return (long) (mCellCount + 1) * mMillisPerCell;
+    }
+
+    public long getPositionMillis() {
+        return (long) mPositionMillis;
+    }
+
+    /**
+     * Number of cells that are fully shown at the current position.
+     */
+    public int getVisibleCount() {
+        return Math.min(mCellCount, (int) (mPositionMillis / mMillisPerCell));
+    }
+
+    /**
+     * Progress in [0, 1) of the line travelling from the last visible cell to the next.
+     */
+    public float getSegmentFraction() {
+        return (float) ((mPositionMillis % mMillisPerCell) / mMillisPerCell);
+    }
+
+    /**
+     * Whether a line is currently travelling between two cells, which is the only
+     * time the picture changes between cell boundaries.
+     */
+    public boolean isInterpolating() {
+        final int visible = getVisibleCount();
+        return visible > 0 && visible < mCellCount;
+    }
+
+    /**
+     * Wall-clock milliseconds until the picture changes again: 0 while a line is
+     * travelling, otherwise the time left until the next cell boundary. Negative when
+     * paused, as nothing will change.
+     */
+    public long getMillisUntilChange() {
+        if (!mPlaying || mCellCount == 0) {
+            return -1;
+        }
+        if (isInterpolating()) {
+            return 0;
+        }
+        final double nextBoundary = (getVisibleCount() + 1) * (double) mMillisPerCell;
+        return Math.max(1L, (long) Math.ceil((nextBoundary - mPositionMillis) / mSpeed));
+    }
+
+    private double wrap(double positionMillis) {
+        final long cycle = getCycleMillis();
+        if (cycle == 0) {
+            return 0;
+        }
+        double wrapped = positionMillis % cycle;
+        if (wrapped < 0) {
+            wrapped += cycle;
+        }
+        return wrapped;
+    }
+}
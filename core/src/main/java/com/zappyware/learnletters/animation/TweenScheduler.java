@@ -0,0 +1,182 @@
+package com.zappyware.learnletters.animation;
+
+import java.util.Arrays;
+
+/**
+ * Runs float tweens for many targets from one frame callback. Tweens live in pooled
+ * slots that are reused once they end, and {@link #advance(long)} updates all of
+ * them in the order they were scheduled, so a host can redraw once per frame
+ * instead of once per animator.
+ *
+ * <p>Not thread safe; schedule and advance on the same thread.
+ */
+public class TweenScheduler {
+
+    /**
+     * Receives the animated values. {@code target} and {@code property} are the ids
+     * passed to {@link #schedule}.
+     */
+    public interface Listener {
+        void onTweenUpdate(int target, int property, float value);
+
+        void onTweenEnd(int target, int property);
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Listener mListener;
+
+    private int[] mTargets = new int[INITIAL_CAPACITY];
+    private int[] mProperties = new int[INITIAL_CAPACITY];
+    private float[] mFrom = new float[INITIAL_CAPACITY];
+    private float[] mTo = new float[INITIAL_CAPACITY];
+    private long[] mStartNanos = new long[INITIAL_CAPACITY];
+    private long[] mDurationNanos = new long[INITIAL_CAPACITY];
+    private Easing[] mEasings = new Easing[INITIAL_CAPACITY];
+
+    private int[] mFreeSlots = new int[INITIAL_CAPACITY];
+    private int mFreeCount;
+    private int mSlotCount;
+
+    /** Active slots, in scheduling order. */
+    private int[] mActive = new int[INITIAL_CAPACITY];
+    private int mActiveCount;
+
+    public TweenScheduler(Listener listener) {
+        mListener = listener;
+    }
+
+    /**
+     * Schedules a tween that starts {@code delayNanos} after {@code nowNanos}. It does
+     * not touch the target before it starts.
+     */
+    public void schedule(int target, int property, float from, float to,
+                         long nowNanos, long delayNanos, long durationNanos, Easing easing) {
+        final int slot = obtainSlot();
+        mTargets[slot] = target;
+        mProperties[slot] = property;
+        mFrom[slot] = from;
+        mTo[slot] = to;
+        mStartNanos[slot] = nowNanos + delayNanos;
+        mDurationNanos[slot] = Math.max(1L, durationNanos);
+        mEasings[slot] = easing;
+
+        if (mActiveCount == mActive.length) {
+            mActive = Arrays.copyOf(mActive, mActiveCount * 2);
+        }
+        mActive[mActiveCount++] = slot;
+    }
+
+    /**
+     * Moves every started tween forward to {@code frameTimeNanos} and reports the
+     * ones that finished.
+     *
+     * @return whether any tween is still running or waiting to start
+     */
+    public boolean advance(long frameTimeNanos) {
+        int kept = 0;
+        final int count = mActiveCount;
+        for (int i = 0; i < count; i++) {
+            final int slot = mActive[i];
+            final long elapsed = frameTimeNanos - mStartNanos[slot];
+            if (elapsed < 0) {
+                mActive[kept++] = slot;
+                continue;
+            }
+
+            final float t = Math.min(1f, (float) elapsed / mDurationNanos[slot]);
+            final float eased = mEasings[slot].ease(t);
+            mListener.onTweenUpdate(mTargets[slot], mProperties[slot],
+                    mFrom[slot] + (mTo[slot] - mFrom[slot]) * eased);
+
+            if (t < 1f) {
+                mActive[kept++] = slot;
+            } else {
+                mListener.onTweenEnd(mTargets[slot], mProperties[slot]);
+                releaseSlot(slot);
+            }
+        }
+        // Tweens scheduled from a listener callback were appended after the old range.
+        System.arraycopy(mActive, count, mActive, kept, mActiveCount - count);
+        mActiveCount = kept + (mActiveCount - count);
+        return mActiveCount > 0;
+    }
+
+    /**
+     * Jumps the tweens of the given property (or all, for a negative property) to
+     * their end values and reports them as ended, in scheduling order.
+     */
+    public void finishAll(int property) {
+        int kept = 0;
+        final int count = mActiveCount;
+        for (int i = 0; i < count; i++) {
+            final int slot = mActive[i];
+            if (property >= 0 && mProperties[slot] != property) {
+                mActive[kept++] = slot;
+                continue;
+            }
+            mListener.onTweenUpdate(mTargets[slot], mProperties[slot], mTo[slot]);
+            mListener.onTweenEnd(mTargets[slot], mProperties[slot]);
+            releaseSlot(slot);
+        }
+        System.arraycopy(mActive, count, mActive, kept, mActiveCount - count);
+        mActiveCount = kept + (mActiveCount - count);
+    }
+
+    /**
+     * Drops every tween without reporting anything, e.g. when the targets are gone.
+     */
+    public void cancelAll() {
+        for (int i = 0; i < mActiveCount; i++) {
+            releaseSlot(mActive[i]);
+        }
+        mActiveCount = 0;
+    }
+
+    /**
+     * Preallocates room for {@code capacity} concurrent tweens, so that scheduling up
+     * to that many does not allocate.
+     */
+    public void ensureCapacity(int capacity) {
+        if (capacity > mTargets.length) {
+            grow(capacity);
+        }
+        if (capacity > mActive.length) {
+            mActive = Arrays.copyOf(mActive, capacity);
+        }
+    }
+
+    public boolean isRunning() {
+        return mActiveCount > 0;
+    }
+
+    public int getActiveCount() {
+        return mActiveCount;
+    }
+
+    private int obtainSlot() {
+        if (mFreeCount > 0) {
+            return mFreeSlots[--mFreeCount];
+        }
+        if (mSlotCount == mTargets.length) {
+            grow(mSlotCount * 2);
+        }
+        return mSlotCount++;
+    }
+
+    private void releaseSlot(int slot) {
+        mEasings[slot] = null;
+        mFreeSlots[mFreeCount++] = slot;
+    }
+
+    private void grow(int capacity) {
+        mTargets = Arrays.copyOf(mTargets, capacity);
+        mProperties = Arrays.copyOf(mProperties, capacity);
+        mFrom = Arrays.copyOf(mFrom, capacity);
+        mTo = Arrays.copyOf(mTo, capacity);
+        mStartNanos = Arrays.copyOf(mStartNanos, capacity);
+        mDurationNanos = Arrays.copyOf(mDurationNanos, capacity);
+        mEasings = Arrays.copyOf(mEasings, capacity);
+        mFreeSlots = Arrays.copyOf(mFreeSlots, capacity);
+    }
+}
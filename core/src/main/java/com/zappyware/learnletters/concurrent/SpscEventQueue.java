@@ -0,0 +1,103 @@
+package com.zappyware.learnletters.concurrent;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded single-producer single-consumer queue of small fixed-shape events, stored
+ * in primitive arrays so offering and draining never allocate. Neither side locks:
+ * each owns one index and publishes it with an ordered write.
+ *
+ * <p>Exactly one thread may call {@link #offer}, and exactly one other thread
+ * {@link #drain}.
+ */
+public class SpscEventQueue {
+
+    /**
+     * Receives drained events, on the consumer thread.
+     */
+    public interface EventSink {
+        void onEvent(int type, float x, float y, long time, int arg);
+    }
+
+    private final int mMask;
+    private final int[] mTypes;
+    private final float[] mXs;
+    private final float[] mYs;
+    private final long[] mTimes;
+    private final int[] mArgs;
+
+    /** Next slot to read; written by the consumer only. */
+    private final AtomicLong mHead = new AtomicLong();
+    /** Next slot to write; written by the producer only. */
+    private final AtomicLong mTail = new AtomicLong();
+
+    /** Producer's last view of the head, refreshed only when the queue looks full. */
+    private long mHeadCache;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    public SpscEventQueue(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        mMask = size - 1;
+        mTypes = new int[size];
+        mXs = new float[size];
+        mYs = new float[size];
+        mTimes = new long[size];
+        mArgs = new int[size];
+    }
+
+    public int capacity() {
+        return mMask + 1;
+    }
+
+    /**
+     * Producer side: appends an event.
+     *
+     * @return false, dropping the event, if the queue is full
+     */
+    public boolean offer(int type, float x, float y, long time, int arg) {
+        final long tail = mTail.get();
+        if (tail - mHeadCache > mMask) {
+            mHeadCache = mHead.get();
+            if (tail - mHeadCache > mMask) {
+                return false;
+            }
+        }
+        final int slot = (int) tail & mMask;
+        mTypes[slot] = type;
+        mXs[slot] = x;
+        mYs[slot] = y;
+        mTimes[slot] = time;
+        mArgs[slot] = arg;
+        mTail.lazySet(tail + 1);
+        return true;
+    }
+
+    /**
+     * Consumer side: passes up to {@code max} queued events to the sink, oldest first.
+     *
+     * @return the number of events drained
+     */
+    public int drain(EventSink sink, int max) {
+        final long head = mHead.get();
+        final long available = mTail.get() - head;
+        final int count = (int) Math.min(available, max);
+        for (int i = 0; i < count; i++) {
+            final int slot = (int) (head + i) & mMask;
+            sink.onEvent(mTypes[slot], mXs[slot], mYs[slot], mTimes[slot], mArgs[slot]);
+        }
+        mHead.lazySet(head + count);
+        return count;
+    }
+
+    /**
+     * Number of queued events. Exact only on the consumer thread with a quiet producer.
+     */
+    public int size() {
+        return (int) (mTail.get() - mHead.get());
+    }
+}
@@ -0,0 +1,71 @@
+package com.zappyware.learnletters.concurrent;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands the latest of a stream of values from one writer thread to one reader thread
+ * without either of them ever waiting. The writer fills the back buffer and publishes
+ * it; the reader takes whatever was published last. Intermediate values the reader
+ * did not get to are dropped, and the three buffers are recycled, so nothing is
+ * allocated after construction.
+ */
+public class TripleBuffer<T> {
+
+    private static final int INDEX_MASK = 3;
+    private static final int FRESH = 4;
+
+    private final Object[] mBuffers;
+    /** Index of the middle buffer, with {@link #FRESH} set while it is unread. */
+    private final AtomicInteger mMiddle = new AtomicInteger(1);
+    private int mBack;
+    private int mFront = 2;
+
+    public TripleBuffer(T first, T second, T third) {
+        mBuffers = new Object[] {first, second, third};
+    }
+
+    /**
+     * Writer side: the buffer to fill before {@link #publish()}.
+     */
+    @SuppressWarnings("unchecked")
+    public T getBack() {
+        return (T) mBuffers[mBack];
+    }
+
+    /**
+     * Writer side: makes the back buffer the latest value and takes over another one
+     * as the new back buffer. Its contents are stale.
+     */
+    public void publish() {
+        mBack = mMiddle.getAndSet(mBack | FRESH) & INDEX_MASK;
+    }
+
+    /**
+     * Whether a published value has not been taken by the reader yet. Either thread
+     * may ask; the answer can be outdated as soon as it is returned.
+     */
+    public boolean hasUnread() {
+        return (mMiddle.get() & FRESH) != 0;
+    }
+
+    /**
+     * Reader side: takes the latest published value into the front buffer.
+     *
+     * @return false if nothing was published since the last call
+     */
+    public boolean take() {
+        if ((mMiddle.get() & FRESH) == 0) {
+            return false;
+        }
+        mFront = mMiddle.getAndSet(mFront) & INDEX_MASK;
+        return true;
+    }
+
+    /**
+     * Reader side: the value taken by the last successful {@link #take()}.
+     */
+    @SuppressWarnings("unchecked")
+    public T getFront() {
+        return (T) mBuffers[mFront];
+    }
+}
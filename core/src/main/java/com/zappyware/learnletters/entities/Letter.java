@@ -0,0 +1,102 @@
+package com.zappyware.learnletters.entities;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Created by Csaba on 2015.02.24..
+ *
+ * The points of a letter, stored as packed coordinate arrays so drawing and hit
+ * testing can address them by index without boxing.
+ */
+public class Letter implements PointSequence {
+
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private float[] mXs;
+    private float[] mYs;
+    private int mSize;
+    private boolean mReadOnly;
+
+    public Letter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public Letter(int capacity) {
+        mXs = new float[capacity];
+        mYs = new float[capacity];
+    }
+
+    public static Letter of(List<Point> points) {
+        final int size = points.size();
+        final Letter letter = new Letter(size);
+        for (int i = 0; i < size; i++) {
+            letter.add(points.get(i));
+        }
+        return letter;
+    }
+
+    public void add(Point point) {
+        add(point.x, point.y);
+    }
+
+    public void add(float x, float y) {
+        checkWritable();
+        if (mSize == mXs.length) {
+            ensureCapacity(Math.max(DEFAULT_CAPACITY, mSize * 2));
+        }
+        mXs[mSize] = x;
+        mYs[mSize] = y;
+        mSize++;
+    }
+
+    public void ensureCapacity(int capacity) {
+        checkWritable();
+        if (capacity > mXs.length) {
+            mXs = Arrays.copyOf(mXs, capacity);
+            mYs = Arrays.copyOf(mYs, capacity);
+        }
+    }
+
+    public void clear() {
+        checkWritable();
+        mSize = 0;
+    }
+
+    /**
+     * Makes every later modification throw. For letters shared between callers, which
+     * caches keyed by letter identity rely on not changing.
+     */
+    public void makeReadOnly() {
+        mReadOnly = true;
+    }
+
+    public boolean isReadOnly() {
+        return mReadOnly;
+    }
+
+    private void checkWritable() {
+        if (mReadOnly) {
+            throw new IllegalStateException("letter is read-only");
+        }
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public float getX(int index) {
+        return mXs[index];
+    }
+
+    @Override
+    public float getY(int index) {
+        return mYs[index];
+    }
+
+    public Point getPoint(int index) {
+        return Point.interned(mXs[index], mYs[index]);
+    }
+}
@@ -0,0 +1,103 @@
+package com.zappyware.learnletters.entities;
+
+/**
+ * Immutable view of a pattern: the letter cells drawn so far, in order. Appending
+ * returns a new snapshot that shares the cell array with the old one, so keeping a
+ * snapshot per added cell costs O(1) each instead of a copy of the whole pattern.
+ * The letter is made {@link Letter#makeReadOnly() read-only} when the first snapshot
+ * is taken, so neither cells nor coordinates change under a reader; snapshots can be
+ * handed to other threads through any safe publication, such as a handler or a
+ * concurrent queue.
+ *
+ * <p>Appending is meant for a single writer thread, like the pattern's view.
+ */
+public final class PatternSnapshot implements PointSequence {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Cell array shared by all snapshots of one pattern. Slots below {@code filled}
+     * are never written again; a snapshot only reads its own prefix.
+     */
+    private static final class Storage {
+        final int[] cells;
+        int filled;
+
+        Storage(int capacity) {
+            cells = new int[capacity];
+        }
+    }
+
+    private final Letter mLetter;
+    private final Storage mStorage;
+    private final int mSize;
+
+    private PatternSnapshot(Letter letter, Storage storage, int size) {
+        mLetter = letter;
+        mStorage = storage;
+        mSize = size;
+    }
+
+    public static PatternSnapshot empty(Letter letter) {
+        return empty(letter, INITIAL_CAPACITY);
+    }
+
+    /**
+     * An empty snapshot whose first {@code capacity} appends do not copy the cells.
+     * Makes {@code letter} read-only.
+     */
+    public static PatternSnapshot empty(Letter letter, int capacity) {
+        letter.makeReadOnly();
+        return new PatternSnapshot(letter, new Storage(capacity), 0);
+    }
+
+    /**
+     * Returns a snapshot with {@code cell} added at the end; this one is unchanged.
+     */
+    public PatternSnapshot append(int cell) {
+        Storage storage = mStorage;
+        if (storage.filled != mSize || mSize == storage.cells.length) {
+            // Another snapshot already extended this prefix, or the array is full.
+            final Storage copy = new Storage(Math.max(INITIAL_CAPACITY, mSize * 2));
+            System.arraycopy(storage.cells, 0, copy.cells, 0, mSize);
+            copy.filled = mSize;
+            storage = copy;
+        }
+        storage.cells[mSize] = cell;
+        storage.filled = mSize + 1;
+        return new PatternSnapshot(mLetter, storage, mSize + 1);
+    }
+
+    public Letter getLetter() {
+        return mLetter;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Index into the letter of the {@code index}-th cell drawn.
+     */
+    public int getCell(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + mSize);
+        }
+        return mStorage.cells[index];
+    }
+
+    @Override
+    public float getX(int index) {
+        return mLetter.getX(getCell(index));
+    }
+
+    @Override
+    public float getY(int index) {
+        return mLetter.getY(getCell(index));
+    }
+
+    public Point getPoint(int index) {
+        return mLetter.getPoint(getCell(index));
+    }
+}
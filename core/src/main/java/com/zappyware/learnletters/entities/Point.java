@@ -0,0 +1,85 @@
+package com.zappyware.learnletters.entities;
+
+/**
+ * Created by Csaba on 2015.02.24..
+ *
+ * Immutable point in normalized [0, 1] coordinates.
+ */
+public class Point {
+
+    private static final String TS_PATTERN = "Point[x=%.2f;y=%.2f]";
+
+    private static final int INTERN_CACHE_SIZE = 1024;
+    private static final Point[] sInternCache = new Point[INTERN_CACHE_SIZE];
+
+    public final float x;
+    public final float y;
+
+    public static Point of(float x, float y) {
+        return new Point(x, y);
+    }
+
+    /**
+     * Like {@link #of(float, float)}, but returns a shared instance for coordinates
+     * that were interned recently. The cache is direct-mapped and bounded, so a
+     * colliding point simply replaces the previous entry.
+     */
+    public static Point interned(float x, float y) {
+        x = ensureRangeIsValid(x);
+        y = ensureRangeIsValid(y);
+
+        final int slot = hash(x, y) & (INTERN_CACHE_SIZE - 1);
+        final Point cached = sInternCache[slot];
+        if (cached != null && cached.x == x && cached.y == y) {
+            return cached;
+        }
+
+        final Point point = new Point(x, y);
+        sInternCache[slot] = point;
+        return point;
+    }
+
+    private Point(float x, float y) {
+        this.x = ensureRangeIsValid(x);
+        this.y = ensureRangeIsValid(y);
+    }
+
+    private static float ensureRangeIsValid(float value) {
+        // Also folds NaN and -0f into 0f, so equal points always have equal bits.
+        if (!(value > 0f)) {
+            return 0f;
+        } else if (value > 1f) {
+            return 1f;
+        }
+        return value;
+    }
+
+    private static int hash(float x, float y) {
+        int hash = 31 * Float.floatToIntBits(x) + Float.floatToIntBits(y);
+        return hash ^ (hash >>> 16);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o instanceof Point) {
+            Point other = (Point) o;
+            return Float.floatToIntBits(x) == Float.floatToIntBits(other.x)
+                    && Float.floatToIntBits(y) == Float.floatToIntBits(other.y);
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash(x, y);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(TS_PATTERN, x, y);
+    }
+
+}
@@ -0,0 +1,13 @@
+package com.zappyware.learnletters.entities;
+
+/**
+ * Read-only, index-addressed sequence of 2D points.
+ */
+public interface PointSequence {
+
+    int size();
+
+    float getX(int index);
+
+    float getY(int index);
+}
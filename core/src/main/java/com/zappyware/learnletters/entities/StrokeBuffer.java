@@ -0,0 +1,133 @@
+package com.zappyware.learnletters.entities;
+
+/**
+ * Ring buffer of raw touch samples stored in primitive arrays. It starts small,
+ * doubles while below its maximum capacity and then overwrites the oldest samples,
+ * so recording a sample never allocates once the buffer has grown.
+ */
+public class StrokeBuffer implements StrokeSamples {
+
+    private final int mMaxCapacity;
+
+    private float[] mXs;
+    private float[] mYs;
+    private float[] mPressures;
+    private long[] mTimes;
+    private int mMask;
+
+    private int mHead;
+    private int mSize;
+    private long mStartSequence;
+
+    /**
+     * @param initialCapacity starting capacity, rounded up to a power of two
+     * @param maxCapacity     capacity after which old samples are overwritten, rounded
+     *                        up to a power of two
+     */
+    public StrokeBuffer(int initialCapacity, int maxCapacity) {
+        mMaxCapacity = powerOfTwo(Math.max(initialCapacity, maxCapacity));
+        allocate(powerOfTwo(initialCapacity));
+    }
+
+    public void add(float x, float y, long time, float pressure) {
+        if (mSize == mXs.length) {
+            if (mXs.length < mMaxCapacity) {
+                grow();
+            } else {
+                mHead = (mHead + 1) & mMask;
+                mSize--;
+                mStartSequence++;
+            }
+        }
+        final int slot = (mHead + mSize) & mMask;
+        mXs[slot] = x;
+        mYs[slot] = y;
+        mTimes[slot] = time;
+        mPressures[slot] = pressure;
+        mSize++;
+    }
+
+    public void clear() {
+        mHead = 0;
+        mSize = 0;
+        mStartSequence = 0;
+    }
+
+    public int capacity() {
+        return mXs.length;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public float getX(int index) {
+        return mXs[slot(index)];
+    }
+
+    @Override
+    public float getY(int index) {
+        return mYs[slot(index)];
+    }
+
+    @Override
+    public long getTime(int index) {
+        return mTimes[slot(index)];
+    }
+
+    @Override
+    public float getPressure(int index) {
+        return mPressures[slot(index)];
+    }
+
+    @Override
+    public long getStartSequence() {
+        return mStartSequence;
+    }
+
+    private int slot(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("sample " + index + " of " + mSize);
+        }
+        return (mHead + index) & mMask;
+    }
+
+    private void grow() {
+        final float[] xs = mXs;
+        final float[] ys = mYs;
+        final long[] times = mTimes;
+        final float[] pressures = mPressures;
+        final int oldCapacity = xs.length;
+
+        allocate(oldCapacity * 2);
+        // Unroll the ring so the oldest sample lands at slot 0.
+        final int firstPart = oldCapacity - mHead;
+        System.arraycopy(xs, mHead, mXs, 0, firstPart);
+        System.arraycopy(xs, 0, mXs, firstPart, mHead);
+        System.arraycopy(ys, mHead, mYs, 0, firstPart);
+        System.arraycopy(ys, 0, mYs, firstPart, mHead);
+        System.arraycopy(times, mHead, mTimes, 0, firstPart);
+        System.arraycopy(times, 0, mTimes, firstPart, mHead);
+        System.arraycopy(pressures, mHead, mPressures, 0, firstPart);
+        System.arraycopy(pressures, 0, mPressures, firstPart, mHead);
+        mHead = 0;
+    }
+
+    private void allocate(int capacity) {
+        mXs = new float[capacity];
+        mYs = new float[capacity];
+        mTimes = new long[capacity];
+        mPressures = new float[capacity];
+        mMask = capacity - 1;
+    }
+
+    private static int powerOfTwo(int value) {
+        int capacity = 1;
+        while (capacity < value) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
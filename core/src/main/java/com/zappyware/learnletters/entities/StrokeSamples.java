@@ -0,0 +1,17 @@
+package com.zappyware.learnletters.entities;
+
+/**
+ * Read-only view of raw touch samples, oldest first. Index 0 is the oldest sample
+ * still retained; {@link #getStartSequence()} tells how many were dropped before it.
+ */
+public interface StrokeSamples extends PointSequence {
+
+    long getTime(int index);
+
+    float getPressure(int index);
+
+    /**
+     * Sequence number of the sample at index 0, counted from the start of the stroke.
+     */
+    long getStartSequence();
+}
@@ -0,0 +1,92 @@
+package com.zappyware.learnletters.geometry;
+
+/**
+ * Accumulates the bounds of everything that changed since the last redraw, so a view
+ * can issue a single invalidate covering exactly that area. The region is one
+ * bounding rectangle, which is what a view invalidate takes anyway.
+ */
+public class DirtyRegion {
+
+    private float mLeft;
+    private float mTop;
+    private float mRight;
+    private float mBottom;
+    private boolean mEmpty = true;
+    private boolean mFull;
+
+    public void add(float left, float top, float right, float bottom) {
+        if (mFull || !(left < right) || !(top < bottom)) {
+            return;
+        }
+        if (mEmpty) {
+            mLeft = left;
+            mTop = top;
+            mRight = right;
+            mBottom = bottom;
+            mEmpty = false;
+        } else {
+            mLeft = Math.min(mLeft, left);
+            mTop = Math.min(mTop, top);
+            mRight = Math.max(mRight, right);
+            mBottom = Math.max(mBottom, bottom);
+        }
+    }
+
+    public void addCircle(float centerX, float centerY, float radius) {
+        add(centerX - radius, centerY - radius, centerX + radius, centerY + radius);
+    }
+
+    /**
+     * Adds a line drawn with round caps and the given half width.
+     */
+    public void addSegment(float x0, float y0, float x1, float y1, float halfWidth) {
+        add(Math.min(x0, x1) - halfWidth, Math.min(y0, y1) - halfWidth,
+                Math.max(x0, x1) + halfWidth, Math.max(y0, y1) + halfWidth);
+    }
+
+    public void add(DirtyRegion other) {
+        if (other.mFull) {
+            addAll();
+        } else if (!other.mEmpty) {
+            add(other.mLeft, other.mTop, other.mRight, other.mBottom);
+        }
+    }
+
+    /**
+     * Marks the whole view as changed, e.g. after a color or mode change.
+     */
+    public void addAll() {
+        mFull = true;
+        mEmpty = false;
+    }
+
+    public boolean isEmpty() {
+        return mEmpty;
+    }
+
+    public boolean isFull() {
+        return mFull;
+    }
+
+    public void clear() {
+        mEmpty = true;
+        mFull = false;
+    }
+
+    /** Left edge rounded outwards to whole pixels. */
+    public int getLeft() {
+        return (int) Math.floor(mLeft);
+    }
+
+    public int getTop() {
+        return (int) Math.floor(mTop);
+    }
+
+    public int getRight() {
+        return (int) Math.ceil(mRight);
+    }
+
+    public int getBottom() {
+        return (int) Math.ceil(mBottom);
+    }
+}
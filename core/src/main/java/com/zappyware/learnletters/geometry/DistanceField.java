@@ -0,0 +1,215 @@
+package com.zappyware.learnletters.geometry;
+
+import com.zappyware.learnletters.entities.PointSequence;
+
+import java.util.Arrays;
+
+/**
+ * Distance from a letter's polyline, sampled on a regular grid over the letter's
+ * normalized [0, 1] square. Once built, the distance at any position is a bilinear
+ * lookup of four grid nodes, so scoring a touch sample costs the same however many
+ * points the letter has.
+ *
+ * <p>Distances are in scaled units: a normalized coordinate is multiplied by the scale
+ * of its axis first, e.g. by the view size to get pixels. Lookups do not allocate and
+ * may run on any thread once {@link #build} has returned.
+ */
+public class DistanceField {
+
+    private int mColumns;
+    private int mRows;
+    private float mScaleX;
+    private float mScaleY;
+    private float[] mDistances = new float[0];
+
+    /**
+     * Rebuilds the field. Nodes near a segment get their exact distance; every other
+     * node takes the nearest of the segments nearest to its neighbours, in four sweeps.
+     *
+     * @param letter  the polyline, in normalized coordinates
+     * @param scaleX  units per normalized x
+     * @param scaleY  units per normalized y
+     * @param columns grid nodes along x, at least 2
+     * @param rows    grid nodes along y, at least 2
+     */
+    public void build(PointSequence letter, float scaleX, float scaleY, int columns, int rows) {
+        if (columns < 2 || rows < 2) {
+            throw new IllegalArgumentException(
+                    "grid must be at least 2x2: " + columns + "x" + rows);
+        }
+        mColumns = columns;
+        mRows = rows;
+        mScaleX = scaleX;
+        mScaleY = scaleY;
+        final int nodes = columns * rows;
+        if (mDistances.length < nodes) {
+            mDistances = new float[nodes];
+        }
+
+        final int count = letter.size();
+        if (count == 0) {
+            Arrays.fill(mDistances, 0, nodes, 0f);
+            return;
+        }
+
+        // Segment i runs from point i to point i + 1; a single point is a segment to itself.
+        final int segments = Math.max(1, count - 1);
+        final float[] xs = new float[segments + 1];
+        final float[] ys = new float[segments + 1];
+        for (int i = 0; i <= segments; i++) {
+            final int point = Math.min(i, count - 1);
+            xs[i] = letter.getX(point) * scaleX;
+            ys[i] = letter.getY(point) * scaleY;
+        }
+
+        // Nearest segment found so far for every node.
+        final int[] nearest = new int[nodes];
+        Arrays.fill(mDistances, 0, nodes, Float.POSITIVE_INFINITY);
+        for (int segment = 0; segment < segments; segment++) {
+            seedSegment(segment, xs, ys, nearest);
+        }
+
+        // Sweeps in all four diagonal orders, so a nearest segment reaches every node
+        // whatever side of the node it lies on.
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                propagateFromNeighbours(column, row, xs, ys, nearest);
+            }
+            for (int column = columns - 1; column >= 0; column--) {
+                propagateFromNeighbours(column, row, xs, ys, nearest);
+            }
+        }
+        for (int row = rows - 1; row >= 0; row--) {
+            for (int column = columns - 1; column >= 0; column--) {
+                propagateFromNeighbours(column, row, xs, ys, nearest);
+            }
+            for (int column = 0; column < columns; column++) {
+                propagateFromNeighbours(column, row, xs, ys, nearest);
+            }
+        }
+    }
+
+    public int getColumns() {
+        return mColumns;
+    }
+
+    public int getRows() {
+        return mRows;
+    }
+
+    /**
+     * Distance from the normalized position to the polyline, in scaled units. Outside
+     * the letter's square the distance to the square is added, which overestimates it
+     * slightly.
+     */
+    public float distanceAt(float x, float y) {
+        if (mColumns == 0) {
+            return 0f;
+        }
+        final float clampedX = Math.max(0f, Math.min(1f, x));
+        final float clampedY = Math.max(0f, Math.min(1f, y));
+
+        final float fx = clampedX * (mColumns - 1);
+        final float fy = clampedY * (mRows - 1);
+        final int column = Math.min((int) fx, mColumns - 2);
+        final int row = Math.min((int) fy, mRows - 2);
+        final float tx = fx - column;
+        final float ty = fy - row;
+
+        final int node = row * mColumns + column;
+        final float top = mDistances[node] + (mDistances[node + 1] - mDistances[node]) * tx;
+        final float bottom = mDistances[node + mColumns]
+                + (mDistances[node + mColumns + 1] - mDistances[node + mColumns]) * tx;
+        final float distance = top + (bottom - top) * ty;
+
+        if (clampedX == x && clampedY == y) {
+            return distance;
+        }
+        final float outsideX = (x - clampedX) * mScaleX;
+        final float outsideY = (y - clampedY) * mScaleY;
+        return distance + (float) Math.sqrt(outsideX * outsideX + outsideY * outsideY);
+    }
+
+    /**
+     * Exact distances for the nodes within one node spacing of the segment's bounds.
+     */
+    private void seedSegment(int segment, float[] xs, float[] ys, int[] nearest) {
+        final float stepX = mScaleX / (mColumns - 1);
+        final float stepY = mScaleY / (mRows - 1);
+        final float ax = xs[segment];
+        final float ay = ys[segment];
+        final float bx = xs[segment + 1];
+        final float by = ys[segment + 1];
+        final int minColumn = clamp((int) Math.floor(Math.min(ax, bx) / stepX) - 1, mColumns);
+        final int maxColumn = clamp((int) Math.ceil(Math.max(ax, bx) / stepX) + 1, mColumns);
+        final int minRow = clamp((int) Math.floor(Math.min(ay, by) / stepY) - 1, mRows);
+        final int maxRow = clamp((int) Math.ceil(Math.max(ay, by) / stepY) + 1, mRows);
+
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                final float distance = distanceToSegment(column * stepX, row * stepY,
+                        ax, ay, bx, by);
+                final int node = row * mColumns + column;
+                if (distance < mDistances[node]) {
+                    mDistances[node] = distance;
+                    nearest[node] = segment;
+                }
+            }
+        }
+    }
+
+    private void propagateFromNeighbours(int column, int row,
+                                         float[] xs, float[] ys, int[] nearest) {
+        for (int fromRow = row - 1; fromRow <= row + 1; fromRow++) {
+            for (int fromColumn = column - 1; fromColumn <= column + 1; fromColumn++) {
+                propagate(column, row, fromColumn, fromRow, xs, ys, nearest);
+            }
+        }
+    }
+
+    private void propagate(int column, int row, int fromColumn, int fromRow,
+                           float[] xs, float[] ys, int[] nearest) {
+        if (fromColumn < 0 || fromColumn >= mColumns || fromRow < 0 || fromRow >= mRows) {
+            return;
+        }
+        final int from = fromRow * mColumns + fromColumn;
+        if (mDistances[from] == Float.POSITIVE_INFINITY) {
+            return;
+        }
+        final int node = row * mColumns + column;
+        final int segment = nearest[from];
+        if (segment == nearest[node] && mDistances[node] != Float.POSITIVE_INFINITY) {
+            return;
+        }
+        final float distance = distanceToSegment(column * mScaleX / (mColumns - 1),
+                row * mScaleY / (mRows - 1),
+                xs[segment], ys[segment], xs[segment + 1], ys[segment + 1]);
+        if (distance < mDistances[node]) {
+            mDistances[node] = distance;
+            nearest[node] = segment;
+        }
+    }
+
+    private static float distanceToSegment(float x, float y,
+                                           float ax, float ay, float bx, float by) {
+        final float dx = bx - ax;
+        final float dy = by - ay;
+        final float lengthSquared = dx * dx + dy * dy;
+        float t = lengthSquared > 0f ? ((x - ax) * dx + (y - ay) * dy) / lengthSquared : 0f;
+        t = Math.max(0f, Math.min(1f, t));
+        return length(x - (ax + t * dx), y - (ay + t * dy));
+    }
+
+    private static int clamp(int node, int nodes) {
+        if (node < 0) {
+            return 0;
+        } else if (node >= nodes) {
+            return nodes - 1;
+        }
+        return node;
+    }
+
+    private static float length(float dx, float dy) {
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+}
@@ -0,0 +1,86 @@
+package com.zappyware.learnletters.geometry;
+
+import com.zappyware.learnletters.entities.Letter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Distance fields of recently shown letters, keyed by letter and view size, so views
+ * showing the same letter at the same size, or a view going back to a letter, share
+ * one field instead of building it again. Letters are matched by identity and must
+ * not be modified once their field was built.
+ *
+ * <p>Thread safe. Returned fields are never rebuilt and can be read from any thread.
+ */
+public class DistanceFieldCache {
+
+    /** Grid spacing in view units; lookups err by less than about half of it. */
+    private static final float NODE_SPACING = 8f;
+    private static final int MAX_NODES_PER_AXIS = 160;
+
+    private final LinkedHashMap<Key, DistanceField> mFields;
+    private final Key mLookup = new Key();
+
+    public DistanceFieldCache(final int capacity) {
+        mFields = new LinkedHashMap<Key, DistanceField>(capacity + 1, 1f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, DistanceField> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the field of the letter mapped to a {@code width} x {@code height} view,
+     * with distances in the view's units. Builds it on a miss.
+     */
+    public synchronized DistanceField get(Letter letter, int width, int height) {
+        mLookup.set(letter, width, height);
+        DistanceField field = mFields.get(mLookup);
+        mLookup.set(null, 0, 0);
+        if (field == null) {
+            field = new DistanceField();
+            field.build(letter, width, height, nodesFor(width), nodesFor(height));
+            final Key key = new Key();
+            key.set(letter, width, height);
+            mFields.put(key, field);
+        }
+        return field;
+    }
+
+    public synchronized void clear() {
+        mFields.clear();
+    }
+
+    private static int nodesFor(int size) {
+        final int nodes = (int) Math.ceil(size / NODE_SPACING) + 1;
+        return Math.max(2, Math.min(MAX_NODES_PER_AXIS, nodes));
+    }
+
+    private static final class Key {
+        private Letter mLetter;
+        private int mWidth;
+        private int mHeight;
+
+        void set(Letter letter, int width, int height) {
+            mLetter = letter;
+            mWidth = width;
+            mHeight = height;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return mLetter == other.mLetter && mWidth == other.mWidth && mHeight == other.mHeight;
+        }
+
+        @Override
+        public int hashCode() {
+            return (System.identityHashCode(mLetter) * 31 + mWidth) * 31 + mHeight;
+        }
+    }
+}
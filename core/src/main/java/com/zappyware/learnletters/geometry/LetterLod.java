@@ -0,0 +1,204 @@
+package com.zappyware.learnletters.geometry;
+
+import com.zappyware.learnletters.entities.Letter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Levels of detail for drawing the dots of a dense letter. Each level keeps a subset of
+ * the letter's points such that every dropped point lies within the level's radius of
+ * a kept one; radii double from level to level. Level 0 is every point. A view draws
+ * the coarsest level whose radius stays under about half a dot at its size, so drawing
+ * cost follows the dots that fit on screen rather than the source point count.
+ *
+ * <p>Levels only decide which dots are drawn. Points keep their indices in the source
+ * letter, so hit testing, listeners and scoring still use the letter itself. Every level
+ * is built from the source, so its error is bounded by its own radius. Immutable once
+ * built; the letter must not be modified afterwards.
+ */
+public class LetterLod {
+
+    /** Letters with fewer points are not simplified; there is nothing to gain. */
+    private static final int MIN_POINTS = 64;
+    /** Radius of level 1, in normalized units; 1/4 px on a 1024 px view. */
+    private static final float FIRST_RADIUS = 1f / 4096f;
+    /** Enough doublings to reach a quarter of the letter, for dots on a thumbnail. */
+    private static final int MAX_LEVELS = 12;
+    /** Past this radius any two normalized points merge; stops odd input early. */
+    private static final float MAX_RADIUS = 2f;
+
+    private final int[][] mLevels;
+    private final float[] mRadii;
+
+    private LetterLod(int[][] levels, float[] radii) {
+        mLevels = levels;
+        mRadii = radii;
+    }
+
+    public static LetterLod of(Letter letter) {
+        final int count = letter.size();
+        final ArrayList<int[]> levels = new ArrayList<>();
+        final ArrayList<Float> radii = new ArrayList<>();
+        final int[] all = new int[count];
+        for (int i = 0; i < count; i++) {
+            all[i] = i;
+        }
+        levels.add(all);
+        radii.add(0f);
+
+        if (count >= MIN_POINTS) {
+            final Clusters clusters = new Clusters(count);
+            final int[] kept = new int[count];
+            float radius = FIRST_RADIUS;
+            int previousSize = count;
+            while (levels.size() < MAX_LEVELS && previousSize > 1 && radius <= MAX_RADIUS) {
+                final int size = clusters.keep(letter, radius, kept);
+                if (size < previousSize) {
+                    levels.add(Arrays.copyOf(kept, size));
+                    radii.add(radius);
+                    previousSize = size;
+                }
+                radius *= 2f;
+            }
+        }
+
+        final float[] radiusArray = new float[radii.size()];
+        for (int i = 0; i < radiusArray.length; i++) {
+            radiusArray[i] = radii.get(i);
+        }
+        return new LetterLod(levels.toArray(new int[levels.size()][]), radiusArray);
+    }
+
+    public int getLevelCount() {
+        return mLevels.length;
+    }
+
+    /**
+     * Indices into the letter of the points kept at the level, in increasing order.
+     * The array is shared; do not modify it.
+     */
+    public int[] getLevel(int level) {
+        return mLevels[level];
+    }
+
+    /** Largest distance, in normalized units, of a dropped point from a kept one. */
+    public float getRadius(int level) {
+        return mRadii[level];
+    }
+
+    /**
+     * The coarsest level whose dropped points lie within {@code pixelRadius} pixels of
+     * a kept one when the letter spans {@code width} x {@code height}; level 0 for an
+     * empty size.
+     */
+    public int forSize(int width, int height, float pixelRadius) {
+        final int scale = Math.max(width, height);
+        if (scale <= 0) {
+            return 0;
+        }
+        int level = 0;
+        while (level + 1 < mLevels.length && mRadii[level + 1] * scale <= pixelRadius) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Greedy clustering in index order: a point is kept unless a kept point lies within
+     * the radius. Kept points are hashed into a grid of radius-sized cells, so only the
+     * 3 x 3 cells around a point are searched.
+     */
+    private static final class Clusters {
+        private final long[] mKeys;
+        private final int[] mHeads;
+        /** Per kept point: the next kept point in the same grid cell, or -1. */
+        private final int[] mNext;
+        private final int mMask;
+
+        Clusters(int count) {
+            int size = 1;
+            while (size < count * 2) {
+                size <<= 1;
+            }
+            mKeys = new long[size];
+            mHeads = new int[size];
+            mNext = new int[count];
+            mMask = size - 1;
+        }
+
+        /**
+         * @return the number of points kept, written to {@code kept}
+         */
+        int keep(Letter letter, float radius, int[] kept) {
+            Arrays.fill(mHeads, -1);
+            final float radiusSquared = radius * radius;
+            final int count = letter.size();
+            int size = 0;
+            for (int i = 0; i < count; i++) {
+                final float x = letter.getX(i);
+                final float y = letter.getY(i);
+                final int column = (int) Math.floor(x / radius);
+                final int row = (int) Math.floor(y / radius);
+                if (!hasNeighbour(letter, x, y, column, row, radiusSquared)) {
+                    final int slot = slot(column, row);
+                    mNext[i] = mHeads[slot];
+                    mHeads[slot] = i;
+                    kept[size++] = i;
+                }
+            }
+            return size;
+        }
+
+        private boolean hasNeighbour(Letter letter, float x, float y, int column, int row,
+                                     float radiusSquared) {
+            for (int r = row - 1; r <= row + 1; r++) {
+                for (int c = column - 1; c <= column + 1; c++) {
+                    final int slot = find(c, r);
+                    for (int k = slot >= 0 ? mHeads[slot] : -1; k >= 0; k = mNext[k]) {
+                        final float dx = letter.getX(k) - x;
+                        final float dy = letter.getY(k) - y;
+                        if (dx * dx + dy * dy <= radiusSquared) {
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
+        }
+
+        /** The slot holding the cell, or -1. */
+        private int find(int column, int row) {
+            final long key = key(column, row);
+            for (int slot = hash(key); ; slot = (slot + 1) & mMask) {
+                if (mHeads[slot] < 0) {
+                    return -1;
+                } else if (mKeys[slot] == key) {
+                    return slot;
+                }
+            }
+        }
+
+        /** The slot holding the cell, claimed if the cell is new. */
+        private int slot(int column, int row) {
+            final long key = key(column, row);
+            for (int slot = hash(key); ; slot = (slot + 1) & mMask) {
+                if (mHeads[slot] < 0) {
+                    mKeys[slot] = key;
+                    return slot;
+                } else if (mKeys[slot] == key) {
+                    return slot;
+                }
+            }
+        }
+
+        private static long key(int column, int row) {
+            return ((long) column << 32) | (row & 0xFFFFFFFFL);
+        }
+
+        private int hash(long key) {
+            final long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 32) & mMask;
+        }
+    }
+}
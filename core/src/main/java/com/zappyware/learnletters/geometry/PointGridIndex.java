@@ -0,0 +1,300 @@
+package com.zappyware.learnletters.geometry;
+
+import com.zappyware.learnletters.entities.Letter;
+
+import java.util.Arrays;
+
+/**
+ * Uniform grid over normalized point coordinates. Answers "which point's hit box
+ * contains this position" by looking at the few cells around the position instead
+ * of scanning every point. Queries do not allocate; only {@link #build} does.
+ */
+public class PointGridIndex {
+
+    private static final int MAX_CELLS_PER_AXIS = 64;
+
+    private float[] mXs = new float[0];
+    private float[] mYs = new float[0];
+    private int mCount;
+
+    private float mHalfWidth;
+    private float mHalfHeight;
+
+    private int mColumns = 1;
+    private int mRows = 1;
+
+    private int[] mCellStart = new int[2];
+    private int[] mCellCursor = new int[1];
+    private int[] mCellItems = new int[0];
+
+    /** Per point: the segment query that last tested it, so each is tested once. */
+    private int[] mVisited = new int[0];
+    private int mQueryStamp;
+    private float[] mEntries = new float[0];
+
+    /**
+     * Rebuilds the grid.
+     *
+     * @param letter     the indexed points, in normalized coordinates
+     * @param halfWidth  half of the hit box width, in normalized units
+     * @param halfHeight half of the hit box height, in normalized units
+     */
+    public void build(Letter letter, float halfWidth, float halfHeight) {
+        final int count = letter.size();
+        if (mXs.length < count) {
+            mXs = new float[count];
+            mYs = new float[count];
+            mCellItems = new int[count];
+            mVisited = new int[count];
+        }
+        for (int i = 0; i < count; i++) {
+            mXs[i] = letter.getX(i);
+            mYs[i] = letter.getY(i);
+        }
+        mCount = count;
+        mHalfWidth = halfWidth;
+        mHalfHeight = halfHeight;
+
+        // A cell is at least as large as a hit box, so a query touches at most 2x2 cells.
+        mColumns = cellsPerAxis(halfWidth);
+        mRows = cellsPerAxis(halfHeight);
+
+        final int cells = mColumns * mRows;
+        if (mCellCursor.length < cells) {
+            mCellStart = new int[cells + 1];
+            mCellCursor = new int[cells];
+        } else {
+            Arrays.fill(mCellStart, 0, cells + 1, 0);
+        }
+
+        for (int i = 0; i < count; i++) {
+            mCellStart[cellOf(mXs[i], mYs[i]) + 1]++;
+        }
+        for (int cell = 0; cell < cells; cell++) {
+            mCellStart[cell + 1] += mCellStart[cell];
+            mCellCursor[cell] = mCellStart[cell];
+        }
+        // Counting sort keeps the items of every cell in ascending index order.
+        for (int i = 0; i < count; i++) {
+            mCellItems[mCellCursor[cellOf(mXs[i], mYs[i])]++] = i;
+        }
+    }
+
+    public void clear() {
+        mCount = 0;
+    }
+
+    public int size() {
+        return mCount;
+    }
+
+    /**
+     * Returns the lowest index whose hit box contains the given normalized position,
+     * or -1 when there is none. This matches the result of a linear scan in index order.
+     */
+    public int query(float x, float y) {
+        if (mCount == 0) {
+            return -1;
+        }
+
+        final int minColumn = column(x - mHalfWidth);
+        final int maxColumn = column(x + mHalfWidth);
+        final int minRow = row(y - mHalfHeight);
+        final int maxRow = row(y + mHalfHeight);
+
+        int best = -1;
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                final int cell = row * mColumns + column;
+                final int end = mCellStart[cell + 1];
+                for (int k = mCellStart[cell]; k < end; k++) {
+                    final int index = mCellItems[k];
+                    if (best >= 0 && index >= best) {
+                        break;
+                    }
+                    if (contains(index, x, y)) {
+                        best = index;
+                        break;
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the points whose hit boxes the segment from (x0, y0) to (x1, y1) passes
+     * through, in the order the segment enters them; ties go to the lower index. Only
+     * the grid cells along the segment are visited, so the cost follows the segment
+     * length and the points near it, not the point count.
+     *
+     * @param out receives the point indices; when more are crossed, the first
+     *            {@code out.length} along the segment are kept
+     * @return the number of indices written to {@code out}
+     */
+    public int querySegment(float x0, float y0, float x1, float y1, int[] out) {
+        if (mCount == 0 || out.length == 0) {
+            return 0;
+        }
+        if (mEntries.length < out.length) {
+            mEntries = new float[out.length];
+        }
+        if (++mQueryStamp == 0) {
+            Arrays.fill(mVisited, 0);
+            mQueryStamp = 1;
+        }
+
+        // Walk the cells the segment crosses. A crossed hit box is at most half a cell
+        // away from the segment, so its point lies in a crossed cell or a neighbour.
+        int column = column(x0);
+        int row = row(y0);
+        final int endColumn = column(x1);
+        final int endRow = row(y1);
+        final float dx = x1 - x0;
+        final float dy = y1 - y0;
+        final int stepColumn = dx > 0f ? 1 : -1;
+        final int stepRow = dy > 0f ? 1 : -1;
+        final float tDeltaX = dx != 0f ? Math.abs(1f / (dx * mColumns)) : Float.POSITIVE_INFINITY;
+        final float tDeltaY = dy != 0f ? Math.abs(1f / (dy * mRows)) : Float.POSITIVE_INFINITY;
+        float tMaxX = dx != 0f
+                ? ((float) (stepColumn > 0 ? column + 1 : column) / mColumns - x0) / dx
+                : Float.POSITIVE_INFINITY;
+        float tMaxY = dy != 0f
+                ? ((float) (stepRow > 0 ? row + 1 : row) / mRows - y0) / dy
+                : Float.POSITIVE_INFINITY;
+
+        int found = 0;
+        // Coordinates outside the grid are clamped to its border cells, so the walk is
+        // bounded by the grid size even for a degenerate segment.
+        for (int steps = mColumns + mRows; steps >= 0; steps--) {
+            found = visitNeighbourhood(column, row, x0, y0, dx, dy, out, found);
+            if (column == endColumn && row == endRow) {
+                break;
+            }
+            if (tMaxX < tMaxY) {
+                tMaxX += tDeltaX;
+                column = clamp(column + stepColumn, mColumns);
+            } else {
+                tMaxY += tDeltaY;
+                row = clamp(row + stepRow, mRows);
+            }
+        }
+        return found;
+    }
+
+    private int visitNeighbourhood(int centerColumn, int centerRow, float x0, float y0,
+                                   float dx, float dy, int[] out, int found) {
+        final int minRow = Math.max(0, centerRow - 1);
+        final int maxRow = Math.min(mRows - 1, centerRow + 1);
+        final int minColumn = Math.max(0, centerColumn - 1);
+        final int maxColumn = Math.min(mColumns - 1, centerColumn + 1);
+        for (int row = minRow; row <= maxRow; row++) {
+            for (int column = minColumn; column <= maxColumn; column++) {
+                final int cell = row * mColumns + column;
+                final int end = mCellStart[cell + 1];
+                for (int k = mCellStart[cell]; k < end; k++) {
+                    final int index = mCellItems[k];
+                    if (mVisited[index] == mQueryStamp) {
+                        continue;
+                    }
+                    mVisited[index] = mQueryStamp;
+                    final float entry = segmentEntry(index, x0, y0, dx, dy);
+                    if (entry >= 0f) {
+                        found = insertHit(index, entry, out, found);
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Parameter in [0, 1] at which the segment enters the point's hit box, or -1 when
+     * it misses the box.
+     */
+    private float segmentEntry(int index, float x0, float y0, float dx, float dy) {
+        float enter = 0f;
+        float exit = 1f;
+        final float minX = mXs[index] - mHalfWidth - x0;
+        final float maxX = mXs[index] + mHalfWidth - x0;
+        if (dx == 0f) {
+            if (minX > 0f || maxX < 0f) {
+                return -1f;
+            }
+        } else {
+            final float t0 = minX / dx;
+            final float t1 = maxX / dx;
+            enter = Math.max(enter, Math.min(t0, t1));
+            exit = Math.min(exit, Math.max(t0, t1));
+        }
+        final float minY = mYs[index] - mHalfHeight - y0;
+        final float maxY = mYs[index] + mHalfHeight - y0;
+        if (dy == 0f) {
+            if (minY > 0f || maxY < 0f) {
+                return -1f;
+            }
+        } else {
+            final float t0 = minY / dy;
+            final float t1 = maxY / dy;
+            enter = Math.max(enter, Math.min(t0, t1));
+            exit = Math.min(exit, Math.max(t0, t1));
+        }
+        return enter <= exit ? enter : -1f;
+    }
+
+    /** Insertion into the hits sorted by entry, then index; hits are few per segment. */
+    private int insertHit(int index, float entry, int[] out, int found) {
+        int position = found;
+        while (position > 0 && (mEntries[position - 1] > entry
+                || (mEntries[position - 1] == entry && out[position - 1] > index))) {
+            position--;
+        }
+        if (position == out.length) {
+            return found;
+        }
+        final int last = Math.min(found, out.length - 1);
+        System.arraycopy(out, position, out, position + 1, last - position);
+        System.arraycopy(mEntries, position, mEntries, position + 1, last - position);
+        out[position] = index;
+        mEntries[position] = entry;
+        return Math.min(found + 1, out.length);
+    }
+
+    private boolean contains(int index, float x, float y) {
+        final float dx = x - mXs[index];
+        final float dy = y - mYs[index];
+        return dx >= -mHalfWidth && dx < mHalfWidth && dy >= -mHalfHeight && dy < mHalfHeight;
+    }
+
+    private int cellOf(float x, float y) {
+        return row(y) * mColumns + column(x);
+    }
+
+    private int column(float x) {
+        return clamp((int) Math.floor(x * mColumns), mColumns);
+    }
+
+    private int row(float y) {
+        return clamp((int) Math.floor(y * mRows), mRows);
+    }
+
+    private static int clamp(int cell, int cells) {
+        if (cell < 0) {
+            return 0;
+        } else if (cell >= cells) {
+            return cells - 1;
+        }
+        return cell;
+    }
+
+    private static int cellsPerAxis(float halfExtent) {
+        if (!(halfExtent > 0f)) {
+            return 1;
+        }
+        final float cells = 1f / (2f * halfExtent);
+        if (cells >= MAX_CELLS_PER_AXIS) {
+            return MAX_CELLS_PER_AXIS;
+        }
+        return Math.max(1, (int) cells);
+    }
+}
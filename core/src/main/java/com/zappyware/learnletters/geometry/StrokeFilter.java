@@ -0,0 +1,177 @@
+package com.zappyware.learnletters.geometry;
+
+/**
+ * Cleans up raw touch samples as they arrive: a one-euro filter takes out jitter
+ * while adding little lag on fast moves, and the filtered path is then resampled at
+ * an even spacing. Whatever the device's touch rate, consumers see one sample per
+ * {@code spacing} units of path, or none while the finger rests.
+ *
+ * <p>Every sample costs O(1) plus one call per emitted sample; nothing is allocated.
+ * Times are in milliseconds, as in touch events. Not thread safe.
+ */
+public class StrokeFilter {
+
+    /**
+     * Receives the filtered, resampled samples.
+     */
+    public interface SampleSink {
+        void onSample(float x, float y, long time);
+    }
+
+    /** Cutoff at rest, in Hz: lower removes more jitter from a slow finger. */
+    private static final float DEFAULT_MIN_CUTOFF = 1f;
+    /** Cutoff growth per unit of speed per second: higher lags less on fast moves. */
+    private static final float DEFAULT_BETA = 0.007f;
+    private static final float SPEED_CUTOFF = 1f;
+    /** Stand-in interval for samples arriving with the same timestamp. */
+    private static final float MIN_INTERVAL_SECONDS = 0.001f;
+
+    private final float mSpacing;
+    private float mMinCutoff = DEFAULT_MIN_CUTOFF;
+    private float mBeta = DEFAULT_BETA;
+    private boolean mEnabled = true;
+
+    private float mX;
+    private float mY;
+    private float mSpeedX;
+    private float mSpeedY;
+    private long mTime;
+    /** The latest raw sample, where the finger actually is. */
+    private float mRawX;
+    private float mRawY;
+
+    private float mEmittedX;
+    private float mEmittedY;
+    /** Path length filtered since the last emitted sample. */
+    private float mTravelled;
+
+    /**
+     * @param spacing distance between emitted samples, in the samples' units
+     */
+    public StrokeFilter(float spacing) {
+        if (!(spacing > 0f)) {
+            throw new IllegalArgumentException("spacing must be positive: " + spacing);
+        }
+        mSpacing = spacing;
+    }
+
+    /**
+     * Tunes the one-euro filter; see the constants for what each value does.
+     */
+    public void setSmoothing(float minCutoff, float beta) {
+        mMinCutoff = minCutoff;
+        mBeta = beta;
+    }
+
+    /**
+     * When disabled, samples are passed on as they come.
+     */
+    public void setEnabled(boolean enabled) {
+        mEnabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return mEnabled;
+    }
+
+    /**
+     * Starts a stroke at the given sample. The caller handles the first sample
+     * itself; it is not passed to the sink.
+     */
+    public void start(float x, float y, long time) {
+        mX = x;
+        mY = y;
+        mSpeedX = 0f;
+        mSpeedY = 0f;
+        mTime = time;
+        mRawX = x;
+        mRawY = y;
+        mEmittedX = x;
+        mEmittedY = y;
+        mTravelled = 0f;
+    }
+
+    public void add(float x, float y, long time, SampleSink sink) {
+        mRawX = x;
+        mRawY = y;
+        if (!mEnabled) {
+            mX = x;
+            mY = y;
+            mTime = time;
+            emit(x, y, time, sink);
+            return;
+        }
+
+        final float seconds = Math.max(MIN_INTERVAL_SECONDS, (time - mTime) / 1000f);
+        final float speedAlpha = alpha(seconds, SPEED_CUTOFF);
+        mSpeedX += speedAlpha * ((x - mX) / seconds - mSpeedX);
+        mSpeedY += speedAlpha * ((y - mY) / seconds - mSpeedY);
+        final float speed = (float) Math.sqrt(mSpeedX * mSpeedX + mSpeedY * mSpeedY);
+        final float alpha = alpha(seconds, mMinCutoff + mBeta * speed);
+        final float filteredX = mX + alpha * (x - mX);
+        final float filteredY = mY + alpha * (y - mY);
+
+        resample(filteredX, filteredY, time, sink);
+        mX = filteredX;
+        mY = filteredY;
+        mTime = time;
+    }
+
+    /**
+     * Ends the stroke where the finger lifted: the path is resampled on from the lagging
+     * filtered position to the last raw sample, which is emitted last. Otherwise a
+     * stroke could stop short of the finger by the filter's lag plus a spacing.
+     */
+    public void finish(SampleSink sink) {
+        if (!mEnabled) {
+            return;
+        }
+        resample(mRawX, mRawY, mTime, sink);
+        mX = mRawX;
+        mY = mRawY;
+        if (mX != mEmittedX || mY != mEmittedY) {
+            emit(mX, mY, mTime, sink);
+        }
+    }
+
+    /** Filtered position of the latest sample. */
+    public float getX() {
+        return mX;
+    }
+
+    public float getY() {
+        return mY;
+    }
+
+    /**
+     * Emits a sample every {@code spacing} along the segment from the previous
+     * filtered position to this one, with times interpolated.
+     */
+    private void resample(float x, float y, long time, SampleSink sink) {
+        final float dx = x - mX;
+        final float dy = y - mY;
+        final float length = (float) Math.sqrt(dx * dx + dy * dy);
+        if (length == 0f) {
+            return;
+        }
+        float position = mSpacing - mTravelled;
+        while (position <= length) {
+            final float t = position / length;
+            emit(mX + t * dx, mY + t * dy, mTime + Math.round(t * (time - mTime)), sink);
+            position += mSpacing;
+        }
+        mTravelled = length - (position - mSpacing);
+    }
+
+    private void emit(float x, float y, long time, SampleSink sink) {
+        mEmittedX = x;
+        mEmittedY = y;
+        mTravelled = 0f;
+        sink.onSample(x, y, time);
+    }
+
+    private static float alpha(float seconds, float cutoff) {
+        final float tau = 1f / (2f * (float) Math.PI * cutoff);
+        return 1f / (1f + tau / seconds);
+    }
+}
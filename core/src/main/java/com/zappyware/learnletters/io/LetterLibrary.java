@@ -0,0 +1,180 @@
+package com.zappyware.learnletters.io;
+
+import com.zappyware.learnletters.entities.Letter;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Read-only view of a letter library file written by {@link LetterLibraryWriter}.
+ *
+ * <pre>
+ * int     magic "LLIB"
+ * int     version
+ * int     letter count
+ * repeat  int nameOffset, int nameLength, int dataOffset, int dataLength
+ * ...     UTF-8 names and {@link PatternCodec} letter data
+ * </pre>
+ *
+ * The file is memory-mapped, so opening only validates the header and allocates
+ * nothing per letter. Letters are decoded straight from the mapping when requested,
+ * and the most recently used ones are kept, so memory does not grow with the size of
+ * the alphabet. Entries pointing outside the file are reported with an
+ * {@link IllegalStateException} when read.
+ */
+public class LetterLibrary {
+
+    static final int MAGIC = 0x4C4C4942;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 12;
+    static final int ENTRY_SIZE = 16;
+
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /** Decoded letters kept by default; about a screenful of an alphabet overview. */
+    public static final int DEFAULT_CACHE_SIZE = 64;
+
+    private final ByteBuffer mBuffer;
+    private final int mCount;
+    /** Recently decoded letters by index, least recently used first. Guarded by itself. */
+    private final LinkedHashMap<Integer, Letter> mLetters;
+
+    public static LetterLibrary open(File file) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            return open(raf.getChannel(), 0, raf.length());
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Maps a region of an open channel, e.g. an uncompressed asset from an
+     * {@code AssetFileDescriptor}. The channel may be closed once this returns.
+     */
+    public static LetterLibrary open(FileChannel channel, long offset, long length)
+            throws IOException {
+        final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        return new LetterLibrary(buffer);
+    }
+
+    public LetterLibrary(ByteBuffer buffer) throws IOException {
+        this(buffer, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param cacheSize the most decoded letters to keep; 0 decodes on every call
+     */
+    public LetterLibrary(ByteBuffer buffer, final int cacheSize) throws IOException {
+        mBuffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if (mBuffer.limit() < HEADER_SIZE || mBuffer.getInt(0) != MAGIC) {
+            throw new IOException("not a letter library");
+        }
+        if (mBuffer.getInt(4) != VERSION) {
+            throw new IOException("unsupported letter library version " + mBuffer.getInt(4));
+        }
+        mCount = mBuffer.getInt(8);
+        if (mCount < 0 || HEADER_SIZE + (long) mCount * ENTRY_SIZE > mBuffer.limit()) {
+            throw new IOException("truncated letter library");
+        }
+        mLetters = new LinkedHashMap<Integer, Letter>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Letter> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public int size() {
+        return mCount;
+    }
+
+    public String getName(int index) {
+        final int entry = entryOffset(index);
+        return new String(read(mBuffer.getInt(entry), mBuffer.getInt(entry + 4)), UTF_8);
+    }
+
+    /**
+     * Returns the index of the letter with the given name or -1. This reads the names
+     * in the file, so callers looking up many letters should keep the indices.
+     */
+    public int indexOf(String name) {
+        final byte[] wanted = name.getBytes(UTF_8);
+        for (int i = 0; i < mCount; i++) {
+            final int entry = entryOffset(i);
+            final int nameOffset = mBuffer.getInt(entry);
+            final int nameLength = mBuffer.getInt(entry + 4);
+            checkRegion(nameOffset, nameLength);
+            if (nameLength == wanted.length && regionEquals(nameOffset, wanted)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the letter, decoded unless it was requested recently. Callers may share
+     * the instance, so it is {@link Letter#makeReadOnly() read-only}; copy it to
+     * modify it.
+     */
+    public Letter getLetter(int index) {
+        final int entry = entryOffset(index);
+        synchronized (mLetters) {
+            final Letter cached = mLetters.get(index);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        final int offset = mBuffer.getInt(entry + 8);
+        final int length = mBuffer.getInt(entry + 12);
+        checkRegion(offset, length);
+        final Letter letter = new Letter();
+        PatternCodec.decode(mBuffer, offset, length, letter);
+        letter.makeReadOnly();
+        synchronized (mLetters) {
+            mLetters.put(index, letter);
+        }
+        return letter;
+    }
+
+    private int entryOffset(int index) {
+        if (index < 0 || index >= mCount) {
+            throw new IndexOutOfBoundsException("letter " + index + " of " + mCount);
+        }
+        return HEADER_SIZE + index * ENTRY_SIZE;
+    }
+
+    private byte[] read(int offset, int length) {
+        checkRegion(offset, length);
+        final byte[] bytes = new byte[length];
+        final ByteBuffer region = mBuffer.duplicate();
+        region.position(offset);
+        region.get(bytes);
+        return bytes;
+    }
+
+    private void checkRegion(int offset, int length) {
+        if (offset < HEADER_SIZE || length < 0 || (long) offset + length > mBuffer.limit()) {
+            throw new IllegalStateException("corrupt letter library: region " + offset
+                    + "+" + length + " outside " + mBuffer.limit() + " bytes");
+        }
+    }
+
+    private boolean regionEquals(int offset, byte[] bytes) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (mBuffer.get(offset + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
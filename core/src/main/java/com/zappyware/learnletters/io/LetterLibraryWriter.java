@@ -0,0 +1,121 @@
+package com.zappyware.learnletters.io;
+
+import com.zappyware.learnletters.entities.Letter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * Packs letters into the file format read by {@link LetterLibrary}.
+ *
+ * <p>Can also be run as a tool:
+ * <pre>
+ * java com.zappyware.learnletters.io.LetterLibraryWriter letters.txt letters.llib
+ * </pre>
+ * where every non-empty line of the input is a letter name followed by
+ * whitespace separated {@code x,y} pairs in normalized coordinates.
+ */
+public class LetterLibraryWriter {
+
+    private final ArrayList<String> mNames = new ArrayList<>();
+    private final ArrayList<byte[]> mData = new ArrayList<>();
+
+    public LetterLibraryWriter add(String name, Letter letter) {
+        mNames.add(name);
+        mData.add(PatternCodec.encode(letter));
+        return this;
+    }
+
+    public int size() {
+        return mNames.size();
+    }
+
+    public byte[] toByteArray() {
+        final int count = mNames.size();
+        final byte[][] names = new byte[count][];
+        int size = LetterLibrary.HEADER_SIZE + count * LetterLibrary.ENTRY_SIZE;
+        for (int i = 0; i < count; i++) {
+            names[i] = mNames.get(i).getBytes(LetterLibrary.UTF_8);
+            size += names[i].length + mData.get(i).length;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(LetterLibrary.MAGIC);
+        buffer.putInt(LetterLibrary.VERSION);
+        buffer.putInt(count);
+
+        int offset = LetterLibrary.HEADER_SIZE + count * LetterLibrary.ENTRY_SIZE;
+        for (int i = 0; i < count; i++) {
+            final int dataLength = mData.get(i).length;
+            buffer.putInt(offset);
+            buffer.putInt(names[i].length);
+            buffer.putInt(offset + names[i].length);
+            buffer.putInt(dataLength);
+            offset += names[i].length + dataLength;
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.put(names[i]);
+            buffer.put(mData.get(i));
+        }
+        return buffer.array();
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(toByteArray());
+    }
+
+    public void writeTo(File file) throws IOException {
+        final OutputStream out = new FileOutputStream(file);
+        try {
+            writeTo(out);
+        } finally {
+            out.close();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("usage: LetterLibraryWriter <letters.txt> <output>");
+            System.exit(1);
+        }
+
+        final LetterLibraryWriter writer = new LetterLibraryWriter();
+        final BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(args[0]), LetterLibrary.UTF_8));
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                final String[] tokens = line.trim().split("\\s+");
+                if (tokens.length == 0 || tokens[0].isEmpty()) {
+                    continue;
+                }
+
+                final Letter letter = new Letter(tokens.length - 1);
+                for (int i = 1; i < tokens.length; i++) {
+                    final int comma = tokens[i].indexOf(',');
+                    if (comma < 0) {
+                        throw new IOException("line " + lineNumber + ": expected x,y but got "
+                                + tokens[i]);
+                    }
+                    letter.add(Float.parseFloat(tokens[i].substring(0, comma)),
+                            Float.parseFloat(tokens[i].substring(comma + 1)));
+                }
+                writer.add(tokens[0], letter);
+            }
+        } finally {
+            reader.close();
+        }
+
+        writer.writeTo(new File(args[1]));
+        System.out.println("packed " + writer.size() + " letters into " + args[1]);
+    }
+}
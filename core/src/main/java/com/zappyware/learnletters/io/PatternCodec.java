@@ -0,0 +1,214 @@
+package com.zappyware.learnletters.io;
+
+import com.zappyware.learnletters.entities.Letter;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Compact binary form of a {@link Letter}.
+ *
+ * <pre>
+ * byte    version
+ * varint  point count
+ * repeat  zigzag varint dx, zigzag varint dy
+ * </pre>
+ *
+ * Coordinates are quantized to 16 bits and stored as deltas from the previous point,
+ * so neighbouring points of a stroke usually take one or two bytes per axis.
+ *
+ * <p>The cells drawn so far, as indices into a letter, have a form of their own:
+ *
+ * <pre>
+ * byte    version
+ * varint  cell count
+ * repeat  varint cell index
+ * </pre>
+ */
+public class PatternCodec {
+
+    public static final int VERSION = 1;
+
+    private static final int QUANT_MAX = 0xFFFF;
+    private static final int MAX_VARINT_BYTES = 5;
+
+    private PatternCodec() {
+    }
+
+    /**
+     * Upper bound of the encoded size of a letter with the given number of points.
+     */
+    public static int maxEncodedSize(int pointCount) {
+        return 1 + MAX_VARINT_BYTES + pointCount * 2 * 3;
+    }
+
+    public static byte[] encode(Letter letter) {
+        final byte[] buffer = new byte[maxEncodedSize(letter.size())];
+        final int length = encode(letter, buffer, 0);
+        return Arrays.copyOf(buffer, length);
+    }
+
+    /**
+     * Encodes the letter into {@code out} starting at {@code offset}; the buffer must
+     * hold at least {@link #maxEncodedSize(int)} bytes from there.
+     *
+     * @return the number of bytes written
+     */
+    public static int encode(Letter letter, byte[] out, int offset) {
+        int position = offset;
+        out[position++] = VERSION;
+
+        final int count = letter.size();
+        position = writeVarint(count, out, position);
+
+        int lastX = 0;
+        int lastY = 0;
+        for (int i = 0; i < count; i++) {
+            final int x = quantize(letter.getX(i));
+            final int y = quantize(letter.getY(i));
+            position = writeVarint(zigzag(x - lastX), out, position);
+            position = writeVarint(zigzag(y - lastY), out, position);
+            lastX = x;
+            lastY = y;
+        }
+        return position - offset;
+    }
+
+    public static Letter decode(byte[] in) {
+        final Letter letter = new Letter();
+        decode(in, 0, in.length, letter);
+        return letter;
+    }
+
+    /**
+     * Decodes the points found in {@code in} and appends them to {@code letter}.
+     *
+     * @throws IllegalArgumentException if the data is truncated or has an unknown version
+     */
+    public static void decode(byte[] in, int offset, int length, Letter letter) {
+        decode(ByteBuffer.wrap(in), offset, length, letter);
+    }
+
+    /**
+     * Decodes from {@code length} bytes at the absolute {@code offset} of {@code in},
+     * e.g. a memory-mapped file, without copying them out; the buffer's position is
+     * left alone.
+     *
+     * @throws IllegalArgumentException if the data is truncated or has an unknown version
+     */
+    public static void decode(ByteBuffer in, int offset, int length, Letter letter) {
+        final int end = offset + length;
+        if (length < 1 || in.get(offset) != VERSION) {
+            throw new IllegalArgumentException("unknown pattern version");
+        }
+
+        final Cursor cursor = new Cursor(in, offset + 1, end);
+        final int count = cursor.readVarint();
+        if (count < 0 || count > (end - cursor.mPosition) / 2) {
+            throw new IllegalArgumentException("truncated pattern data");
+        }
+        letter.ensureCapacity(letter.size() + count);
+
+        int x = 0;
+        int y = 0;
+        for (int i = 0; i < count; i++) {
+            x += unzigzag(cursor.readVarint());
+            y += unzigzag(cursor.readVarint());
+            letter.add(dequantize(x), dequantize(y));
+        }
+    }
+
+    /**
+     * Encodes the first {@code count} cell indices, which must not be negative.
+     */
+    public static byte[] encodeCells(int[] cells, int count) {
+        final byte[] buffer = new byte[1 + MAX_VARINT_BYTES * (count + 1)];
+        int position = 0;
+        buffer[position++] = VERSION;
+        position = writeVarint(count, buffer, position);
+        for (int i = 0; i < count; i++) {
+            position = writeVarint(cells[i], buffer, position);
+        }
+        return Arrays.copyOf(buffer, position);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the data is truncated, has an unknown version
+     *                                  or holds a negative index
+     */
+    public static int[] decodeCells(byte[] in) {
+        if (in.length < 1 || in[0] != VERSION) {
+            throw new IllegalArgumentException("unknown pattern version");
+        }
+        final Cursor cursor = new Cursor(ByteBuffer.wrap(in), 1, in.length);
+        final int count = cursor.readVarint();
+        if (count < 0 || count > in.length - cursor.mPosition) {
+            throw new IllegalArgumentException("truncated pattern data");
+        }
+        final int[] cells = new int[count];
+        for (int i = 0; i < count; i++) {
+            cells[i] = cursor.readVarint();
+            if (cells[i] < 0) {
+                throw new IllegalArgumentException("negative cell index in pattern data");
+            }
+        }
+        return cells;
+    }
+
+    public static int quantize(float value) {
+        if (!(value > 0f)) {
+            return 0;
+        } else if (value >= 1f) {
+            return QUANT_MAX;
+        }
+        return Math.round(value * QUANT_MAX);
+    }
+
+    public static float dequantize(int value) {
+        return value / (float) QUANT_MAX;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static int writeVarint(int value, byte[] out, int position) {
+        while ((value & ~0x7F) != 0) {
+            out[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[position++] = (byte) value;
+        return position;
+    }
+
+    private static final class Cursor {
+        private final ByteBuffer mData;
+        private final int mEnd;
+        private int mPosition;
+
+        private Cursor(ByteBuffer data, int position, int end) {
+            mData = data;
+            mPosition = position;
+            mEnd = end;
+        }
+
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                if (mPosition >= mEnd) {
+                    throw new IllegalArgumentException("truncated pattern data");
+                }
+                final byte b = mData.get(mPosition++);
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("malformed varint in pattern data");
+        }
+    }
+}
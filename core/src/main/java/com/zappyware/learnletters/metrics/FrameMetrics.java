@@ -0,0 +1,55 @@
+package com.zappyware.learnletters.metrics;
+
+/**
+ * Drawing and input counters of a view, cheap enough to record on every frame in
+ * production builds. Durations are in nanoseconds. Not thread safe; a view records
+ * on its UI thread and hands out copies.
+ */
+public class FrameMetrics {
+
+    /** Time spent drawing a frame, in onDraw or on a render thread. */
+    public final LatencyHistogram drawNanos = new LatencyHistogram();
+    /** From the timestamp of a touch event to the invalidate it caused. */
+    public final LatencyHistogram touchToInvalidateNanos = new LatencyHistogram();
+    /** Time of a single hit test. */
+    public final LatencyHistogram hitTestNanos = new LatencyHistogram();
+
+    public long invalidations;
+    public long fullRedraws;
+    public long partialRedraws;
+
+    /** Animations running at the last update, and the most seen since the last reset. */
+    public int animators;
+    public int maxAnimators;
+
+    public void setAnimators(int count) {
+        animators = count;
+        if (count > maxAnimators) {
+            maxAnimators = count;
+        }
+    }
+
+    /**
+     * Clears the histograms and counters. The animator gauge keeps its current value.
+     */
+    public void reset() {
+        drawNanos.reset();
+        touchToInvalidateNanos.reset();
+        hitTestNanos.reset();
+        invalidations = 0;
+        fullRedraws = 0;
+        partialRedraws = 0;
+        maxAnimators = animators;
+    }
+
+    public void copyTo(FrameMetrics out) {
+        drawNanos.copyTo(out.drawNanos);
+        touchToInvalidateNanos.copyTo(out.touchToInvalidateNanos);
+        hitTestNanos.copyTo(out.hitTestNanos);
+        out.invalidations = invalidations;
+        out.fullRedraws = fullRedraws;
+        out.partialRedraws = partialRedraws;
+        out.animators = animators;
+        out.maxAnimators = maxAnimators;
+    }
+}
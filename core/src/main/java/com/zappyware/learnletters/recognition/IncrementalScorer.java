@@ -0,0 +1,103 @@
+package com.zappyware.learnletters.recognition;
+
+import com.zappyware.learnletters.entities.Letter;
+import com.zappyware.learnletters.entities.StrokeBuffer;
+import com.zappyware.learnletters.geometry.DistanceField;
+
+/**
+ * Scores a stroke while it is drawn: every sample updates its deviation from the
+ * letter's polyline, looked up in a {@link DistanceField} built once per letter, and
+ * the end of the stroke runs the full {@link StrokeRecognizer} comparison. Samples are
+ * in the letter's normalized coordinates.
+ *
+ * <p>Meant to run on a worker thread. Not thread safe; does not allocate per sample.
+ */
+public class IncrementalScorer {
+
+    private static final int STROKE_INITIAL_CAPACITY = 256;
+    private static final int STROKE_MAX_CAPACITY = 4096;
+    /** Grid nodes per axis of the deviation field; lookups err by less than a node spacing. */
+    private static final int FIELD_NODES = 129;
+
+    private final StrokeRecognizer mRecognizer = new StrokeRecognizer();
+    private final StrokeBuffer mStroke =
+            new StrokeBuffer(STROKE_INITIAL_CAPACITY, STROKE_MAX_CAPACITY);
+
+    private Letter mLetter;
+    private StrokeTemplate mTemplate;
+    private final DistanceField mField = new DistanceField();
+
+    private long mStrokeId;
+    private int mCellsHit;
+    private double mDeviationSum;
+    private float mMaxDeviation;
+    private int mDroppedEvents;
+    private boolean mFinished;
+    private float mScore;
+
+    /**
+     * Sets the letter following strokes are scored against. The letter must not be
+     * modified afterwards.
+     */
+    public void setLetter(Letter letter) {
+        mLetter = letter;
+        mTemplate = letter != null && letter.size() > 0
+                ? StrokeTemplate.of(null, letter, mRecognizer.getSampleCount())
+                : null;
+        if (letter != null) {
+            mField.build(letter, 1f, 1f, FIELD_NODES, FIELD_NODES);
+        }
+    }
+
+    public void start() {
+        mStrokeId++;
+        mStroke.clear();
+        mCellsHit = 0;
+        mDeviationSum = 0.0;
+        mMaxDeviation = 0f;
+        mDroppedEvents = 0;
+        mFinished = false;
+        mScore = 0f;
+    }
+
+    public void addSample(float x, float y, long time) {
+        mStroke.add(x, y, time, 1f);
+        final float deviation = mLetter != null ? mField.distanceAt(x, y) : 0f;
+        mDeviationSum += deviation;
+        if (deviation > mMaxDeviation) {
+            mMaxDeviation = deviation;
+        }
+    }
+
+    public void addCell(int cell) {
+        mCellsHit++;
+    }
+
+    public void addDropped(int count) {
+        mDroppedEvents += count;
+    }
+
+    /**
+     * Ends the stroke and compares it with the letter as a whole.
+     *
+     * @return the score in [0, 1]
+     */
+    public float finish() {
+        mFinished = true;
+        mScore = mTemplate != null ? mRecognizer.score(mTemplate, mStroke, 1f, 1f) : 0f;
+        return mScore;
+    }
+
+    public void report(ScoreReport out) {
+        final int samples = mStroke.size();
+        out.strokeId = mStrokeId;
+        out.sampleCount = samples;
+        out.cellsHit = mCellsHit;
+        out.cellCount = mLetter != null ? mLetter.size() : 0;
+        out.meanDeviation = samples == 0 ? 0f : (float) (mDeviationSum / samples);
+        out.maxDeviation = mMaxDeviation;
+        out.droppedEvents = mDroppedEvents;
+        out.finished = mFinished;
+        out.score = mScore;
+    }
+}
@@ -0,0 +1,39 @@
+package com.zappyware.learnletters.recognition;
+
+/**
+ * Progress of the stroke being scored, as computed by {@link IncrementalScorer}.
+ * Distances are in the letter's normalized coordinates.
+ */
+public class ScoreReport {
+
+    /** Counts strokes, so reports of different strokes can be told apart. */
+    public long strokeId;
+    public int sampleCount;
+    public int cellsHit;
+    public int cellCount;
+    /** Mean and largest distance of the samples from the letter's polyline. */
+    public float meanDeviation;
+    public float maxDeviation;
+    /** Events the producer had to drop because the consumer fell behind. */
+    public int droppedEvents;
+
+    /** Whether the stroke ended; {@link #score} is only set then. */
+    public boolean finished;
+    public float score;
+
+    public float getProgress() {
+        return cellCount == 0 ? 0f : (float) cellsHit / cellCount;
+    }
+
+    public void copyTo(ScoreReport out) {
+        out.strokeId = strokeId;
+        out.sampleCount = sampleCount;
+        out.cellsHit = cellsHit;
+        out.cellCount = cellCount;
+        out.meanDeviation = meanDeviation;
+        out.maxDeviation = maxDeviation;
+        out.droppedEvents = droppedEvents;
+        out.finished = finished;
+        out.score = score;
+    }
+}
@@ -0,0 +1,221 @@
+package com.zappyware.learnletters.recognition;
+
+import com.zappyware.learnletters.entities.PointSequence;
+
+/**
+ * Grades a drawn trace against {@link StrokeTemplate}s in the spirit of the $1
+ * recognizer: the trace is resampled and normalized like the templates, and the
+ * distance is the mean distance between corresponding points. Rotation is not
+ * searched, since a letter's orientation matters.
+ *
+ * <p>Keeps its scratch buffers between calls, so grading does not allocate. Not
+ * thread safe.
+ */
+public class StrokeRecognizer {
+
+    public static final int DEFAULT_SAMPLE_COUNT = 32;
+
+    /** Largest mean distance between two normalized strokes, used to map distance to a score. */
+    private static final float HALF_DIAGONAL = (float) (0.5 * Math.sqrt(2.0));
+
+    private final int mSampleCount;
+    private final float[] mTraceXs;
+    private final float[] mTraceYs;
+
+    public StrokeRecognizer() {
+        this(DEFAULT_SAMPLE_COUNT);
+    }
+
+    public StrokeRecognizer(int sampleCount) {
+        if (sampleCount < 2) {
+            throw new IllegalArgumentException("sample count must be at least 2");
+        }
+        mSampleCount = sampleCount;
+        mTraceXs = new float[sampleCount];
+        mTraceYs = new float[sampleCount];
+    }
+
+    public int getSampleCount() {
+        return mSampleCount;
+    }
+
+    public boolean setTrace(PointSequence trace) {
+        return setTrace(trace, 1f, 1f);
+    }
+
+    /**
+     * Resamples and normalizes a trace for the following {@link #distance} calls. The
+     * trace coordinates are multiplied by the scales first, e.g. to map view pixels to
+     * the letter's normalized coordinates.
+     *
+     * @return false if the trace has fewer than two points
+     */
+    public boolean setTrace(PointSequence trace, float scaleX, float scaleY) {
+        if (trace.size() < 2) {
+            return false;
+        }
+        normalize(trace, scaleX, scaleY, mTraceXs, mTraceYs);
+        return true;
+    }
+
+    /**
+     * Mean point distance between the current trace and the template, or
+     * {@link Float#POSITIVE_INFINITY} as soon as it is known to exceed {@code limit}.
+     */
+    public float distance(StrokeTemplate template, float limit) {
+        checkSampleCount(template);
+        return distance(mTraceXs, mTraceYs, template.xs, template.ys, limit);
+    }
+
+    /**
+     * Score in [0, 1] of the trace against a single template, 1 being a perfect match.
+     */
+    public float score(StrokeTemplate template, PointSequence trace, float scaleX, float scaleY) {
+        if (!setTrace(trace, scaleX, scaleY)) {
+            return 0f;
+        }
+        return toScore(distance(template, Float.POSITIVE_INFINITY));
+    }
+
+    /**
+     * Index of the closest template to the trace, or -1 if the trace is too short or
+     * there are no templates. Templates that cannot beat the best so far are abandoned
+     * early.
+     */
+    public int recognize(StrokeTemplate[] templates, PointSequence trace,
+                         float scaleX, float scaleY) {
+        if (!setTrace(trace, scaleX, scaleY)) {
+            return -1;
+        }
+        int best = -1;
+        float bestDistance = Float.POSITIVE_INFINITY;
+        for (int i = 0; i < templates.length; i++) {
+            final float d = distance(templates[i], bestDistance);
+            if (d < bestDistance) {
+                bestDistance = d;
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    public static float toScore(float distance) {
+        return Math.max(0f, 1f - distance / HALF_DIAGONAL);
+    }
+
+    static float distance(float[] axs, float[] ays, float[] bxs, float[] bys, float limit) {
+        final int n = axs.length;
+        final float sumLimit = limit * n;
+        float sum = 0f;
+        for (int i = 0; i < n; i++) {
+            final float dx = axs[i] - bxs[i];
+            final float dy = ays[i] - bys[i];
+            sum += (float) Math.sqrt(dx * dx + dy * dy);
+            if (sum > sumLimit) {
+                return Float.POSITIVE_INFINITY;
+            }
+        }
+        return sum / n;
+    }
+
+    /**
+     * Resamples the scaled polyline to {@code outXs.length} equidistant points, moves
+     * their centroid to the origin and scales them uniformly so the larger side is 1.
+     */
+    static void normalize(PointSequence points, float scaleX, float scaleY,
+                          float[] outXs, float[] outYs) {
+        resample(points, scaleX, scaleY, outXs, outYs);
+
+        final int n = outXs.length;
+        float cx = 0f;
+        float cy = 0f;
+        float minX = Float.POSITIVE_INFINITY;
+        float minY = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            cx += outXs[i];
+            cy += outYs[i];
+            minX = Math.min(minX, outXs[i]);
+            maxX = Math.max(maxX, outXs[i]);
+            minY = Math.min(minY, outYs[i]);
+            maxY = Math.max(maxY, outYs[i]);
+        }
+        cx /= n;
+        cy /= n;
+
+        final float size = Math.max(maxX - minX, maxY - minY);
+        final float scale = size > 0f ? 1f / size : 1f;
+        for (int i = 0; i < n; i++) {
+            outXs[i] = (outXs[i] - cx) * scale;
+            outYs[i] = (outYs[i] - cy) * scale;
+        }
+    }
+
+    static void resample(PointSequence points, float scaleX, float scaleY,
+                         float[] outXs, float[] outYs) {
+        final int n = outXs.length;
+        final int count = points.size();
+        if (count == 0) {
+            for (int i = 0; i < n; i++) {
+                outXs[i] = 0f;
+                outYs[i] = 0f;
+            }
+            return;
+        }
+
+        float length = 0f;
+        float previousX = points.getX(0) * scaleX;
+        float previousY = points.getY(0) * scaleY;
+        for (int i = 1; i < count; i++) {
+            final float x = points.getX(i) * scaleX;
+            final float y = points.getY(i) * scaleY;
+            length += length(x - previousX, y - previousY);
+            previousX = x;
+            previousY = y;
+        }
+        final float interval = length / (n - 1);
+
+        previousX = points.getX(0) * scaleX;
+        previousY = points.getY(0) * scaleY;
+        outXs[0] = previousX;
+        outYs[0] = previousY;
+        int written = 1;
+        float carried = 0f;
+        for (int i = 1; i < count && written < n; i++) {
+            final float x = points.getX(i) * scaleX;
+            final float y = points.getY(i) * scaleY;
+            float segment = length(x - previousX, y - previousY);
+            while (interval > 0f && carried + segment >= interval && written < n) {
+                final float t = (interval - carried) / segment;
+                previousX += t * (x - previousX);
+                previousY += t * (y - previousY);
+                outXs[written] = previousX;
+                outYs[written] = previousY;
+                written++;
+                segment -= interval - carried;
+                carried = 0f;
+            }
+            carried += segment;
+            previousX = x;
+            previousY = y;
+        }
+        // Rounding can leave the last slots unwritten; they belong at the end point.
+        while (written < n) {
+            outXs[written] = points.getX(count - 1) * scaleX;
+            outYs[written] = points.getY(count - 1) * scaleY;
+            written++;
+        }
+    }
+
+    private static float length(float dx, float dy) {
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    private void checkSampleCount(StrokeTemplate template) {
+        if (template.xs.length != mSampleCount) {
+            throw new IllegalArgumentException("template has " + template.xs.length
+                    + " samples, recognizer uses " + mSampleCount);
+        }
+    }
+}
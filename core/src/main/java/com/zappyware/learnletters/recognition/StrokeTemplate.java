@@ -0,0 +1,36 @@
+package com.zappyware.learnletters.recognition;
+
+import com.zappyware.learnletters.entities.PointSequence;
+
+/**
+ * A stroke resampled to a fixed number of equidistant points, translated to its
+ * centroid and scaled so its larger side is 1. Templates are prepared once and can
+ * then be compared against any number of traces.
+ */
+public class StrokeTemplate {
+
+    final float[] xs;
+    final float[] ys;
+
+    private final String mName;
+
+    StrokeTemplate(String name, int sampleCount) {
+        mName = name;
+        xs = new float[sampleCount];
+        ys = new float[sampleCount];
+    }
+
+    public static StrokeTemplate of(String name, PointSequence points, int sampleCount) {
+        final StrokeTemplate template = new StrokeTemplate(name, sampleCount);
+        StrokeRecognizer.normalize(points, 1f, 1f, template.xs, template.ys);
+        return template;
+    }
+
+    public String getName() {
+        return mName;
+    }
+
+    public int getSampleCount() {
+        return xs.length;
+    }
+}
@@ -0,0 +1,281 @@
+package com.zappyware.learnletters.recognition;
+
+import com.zappyware.learnletters.entities.PointSequence;
+
+import java.util.Arrays;
+
+/**
+ * Nearest-template search over a whole alphabet.
+ *
+ * <p>Every template is summarized by the means of its points over a few equal
+ * segments. The weighted sum of distances between those means is a metric, and it
+ * never exceeds the full mean point distance used by {@link StrokeRecognizer}. The
+ * summaries are organized in a vantage-point tree, so a query only visits the
+ * templates whose lower bound can still beat the k-th best match found so far, and
+ * runs the full distance, with early abandoning, on those alone.
+ *
+ * <p>Searching does not allocate. Not thread safe.
+ */
+public class TemplateIndex {
+
+    private static final int SEGMENTS = 8;
+
+    private final StrokeTemplate[] mTemplates;
+    private final int mSampleCount;
+    private final int mSegments;
+    private final float[] mWeights;
+    private final float[][] mFeatures;
+
+    /** Vantage-point tree nodes: template, radius and the two subtrees (-1 if none). */
+    private final int[] mNodeTemplate;
+    private final float[] mNodeRadius;
+    private final int[] mNodeInside;
+    private final int[] mNodeOutside;
+    private final int mRoot;
+    private int mNodeCount;
+
+    private final float[] mQueryXs;
+    private final float[] mQueryYs;
+    private final float[] mQueryFeature;
+
+    private int[] mResultIndices;
+    private float[] mResultDistances;
+    private int mResultCount;
+    private int mResultLimit;
+    private int mFullComparisons;
+
+    public TemplateIndex(StrokeTemplate[] templates) {
+        mTemplates = templates.clone();
+        mSampleCount = templates.length > 0
+                ? templates[0].getSampleCount()
+                : StrokeRecognizer.DEFAULT_SAMPLE_COUNT;
+        mSegments = Math.min(SEGMENTS, mSampleCount);
+
+        mWeights = new float[mSegments];
+        for (int k = 0; k < mSegments; k++) {
+            mWeights[k] = (float) (segmentEnd(k) - segmentStart(k)) / mSampleCount;
+        }
+
+        final int count = mTemplates.length;
+        mFeatures = new float[count][];
+        for (int i = 0; i < count; i++) {
+            if (mTemplates[i].getSampleCount() != mSampleCount) {
+                throw new IllegalArgumentException("all templates need the same sample count");
+            }
+            mFeatures[i] = new float[mSegments * 2];
+            summarize(mTemplates[i].xs, mTemplates[i].ys, mFeatures[i]);
+        }
+
+        mNodeTemplate = new int[count];
+        mNodeRadius = new float[count];
+        mNodeInside = new int[count];
+        mNodeOutside = new int[count];
+        final int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        mNodeCount = 0;
+        mRoot = build(order, 0, count, new float[count]);
+
+        mQueryXs = new float[mSampleCount];
+        mQueryYs = new float[mSampleCount];
+        mQueryFeature = new float[mSegments * 2];
+    }
+
+    public int size() {
+        return mTemplates.length;
+    }
+
+    public StrokeTemplate get(int index) {
+        return mTemplates[index];
+    }
+
+    /**
+     * Number of full template comparisons the last search ran, for measuring how much
+     * the lower bounds pruned.
+     */
+    public int getLastFullComparisons() {
+        return mFullComparisons;
+    }
+
+    /**
+     * Finds the {@code k} templates closest to the trace.
+     *
+     * @param outIndices   receives template indices, closest first
+     * @param outDistances receives the matching mean point distances
+     * @return the number of results written, at most {@code k}
+     */
+    public int search(PointSequence trace, float scaleX, float scaleY, int k,
+                      int[] outIndices, float[] outDistances) {
+        mFullComparisons = 0;
+        if (k <= 0 || mRoot < 0 || trace.size() < 2) {
+            return 0;
+        }
+
+        StrokeRecognizer.normalize(trace, scaleX, scaleY, mQueryXs, mQueryYs);
+        summarize(mQueryXs, mQueryYs, mQueryFeature);
+
+        mResultIndices = outIndices;
+        mResultDistances = outDistances;
+        mResultCount = 0;
+        mResultLimit = Math.min(k, Math.min(outIndices.length, outDistances.length));
+        search(mRoot);
+        mResultIndices = null;
+        mResultDistances = null;
+        return mResultCount;
+    }
+
+    private void search(int node) {
+        final int template = mNodeTemplate[node];
+        final float bound = featureDistance(mQueryFeature, mFeatures[template]);
+        if (bound < threshold()) {
+            mFullComparisons++;
+            final StrokeTemplate candidate = mTemplates[template];
+            final float distance = StrokeRecognizer.distance(
+                    mQueryXs, mQueryYs, candidate.xs, candidate.ys, threshold());
+            offer(template, distance);
+        }
+
+        final float radius = mNodeRadius[node];
+        final int inside = mNodeInside[node];
+        final int outside = mNodeOutside[node];
+        // Visit the side the query falls in first; it is the likelier to tighten the threshold.
+        if (bound < radius) {
+            if (inside >= 0 && bound - threshold() < radius) {
+                search(inside);
+            }
+            if (outside >= 0 && bound + threshold() >= radius) {
+                search(outside);
+            }
+        } else {
+            if (outside >= 0 && bound + threshold() >= radius) {
+                search(outside);
+            }
+            if (inside >= 0 && bound - threshold() < radius) {
+                search(inside);
+            }
+        }
+    }
+
+    private float threshold() {
+        return mResultCount < mResultLimit
+                ? Float.POSITIVE_INFINITY
+                : mResultDistances[mResultCount - 1];
+    }
+
+    private void offer(int template, float distance) {
+        if (distance >= threshold()) {
+            return;
+        }
+        int position = mResultCount < mResultLimit ? mResultCount++ : mResultCount - 1;
+        while (position > 0 && mResultDistances[position - 1] > distance) {
+            mResultDistances[position] = mResultDistances[position - 1];
+            mResultIndices[position] = mResultIndices[position - 1];
+            position--;
+        }
+        mResultDistances[position] = distance;
+        mResultIndices[position] = template;
+    }
+
+    private int build(int[] order, int from, int to, float[] scratch) {
+        if (from >= to) {
+            return -1;
+        }
+        final int node = mNodeCount++;
+        final int vantage = order[from];
+        mNodeTemplate[node] = vantage;
+
+        final int rest = from + 1;
+        if (rest == to) {
+            mNodeInside[node] = -1;
+            mNodeOutside[node] = -1;
+            return node;
+        }
+
+        for (int i = rest; i < to; i++) {
+            scratch[i] = featureDistance(mFeatures[vantage], mFeatures[order[i]]);
+        }
+        // Split the rest at the median distance from the vantage point.
+        final int median = (rest + to) >>> 1;
+        select(order, scratch, rest, to - 1, median);
+        mNodeRadius[node] = scratch[median];
+
+        mNodeInside[node] = build(order, rest, median, scratch);
+        mNodeOutside[node] = build(order, median, to, scratch);
+        return node;
+    }
+
+    /** Quickselect on {@code keys[from..to]}, permuting {@code order} alongside. */
+    private static void select(int[] order, float[] keys, int from, int to, int nth) {
+        while (from < to) {
+            final float pivot = keys[(from + to) >>> 1];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(order, keys, i++, j--);
+                }
+            }
+            if (nth <= j) {
+                to = j;
+            } else if (nth >= i) {
+                from = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static void swap(int[] order, float[] keys, int a, int b) {
+        final int index = order[a];
+        order[a] = order[b];
+        order[b] = index;
+        final float key = keys[a];
+        keys[a] = keys[b];
+        keys[b] = key;
+    }
+
+    private void summarize(float[] xs, float[] ys, float[] out) {
+        Arrays.fill(out, 0f);
+        for (int k = 0; k < mSegments; k++) {
+            final int start = segmentStart(k);
+            final int end = segmentEnd(k);
+            float x = 0f;
+            float y = 0f;
+            for (int i = start; i < end; i++) {
+                x += xs[i];
+                y += ys[i];
+            }
+            out[2 * k] = x / (end - start);
+            out[2 * k + 1] = y / (end - start);
+        }
+    }
+
+    /**
+     * Lower bound of the mean point distance: within a segment, the mean of the point
+     * distances is at least the distance between the segment means.
+     */
+    private float featureDistance(float[] a, float[] b) {
+        float sum = 0f;
+        for (int k = 0; k < mSegments; k++) {
+            final float dx = a[2 * k] - b[2 * k];
+            final float dy = a[2 * k + 1] - b[2 * k + 1];
+            sum += mWeights[k] * (float) Math.sqrt(dx * dx + dy * dy);
+        }
+        return sum;
+    }
+
+    private int segmentStart(int k) {
+        return k * mSampleCount / mSegments;
+    }
+
+    private int segmentEnd(int k) {
+        return (k + 1) * mSampleCount / mSegments;
+    }
+}
@@ -0,0 +1,88 @@
+package com.zappyware.learnletters.geometry;
+
+import com.zappyware.learnletters.entities.Letter;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LetterLodTest {
+
+    @Test
+    public void droppedPointsLieNearKeptOnes() {
+        final Random random = new Random(9);
+        final Letter letter = new Letter(5000);
+        for (int i = 0; i < 5000; i++) {
+            letter.add(random.nextFloat(), random.nextFloat());
+        }
+        final LetterLod lod = LetterLod.of(letter);
+        assertTrue(lod.getLevelCount() > 1);
+        assertEquals(letter.size(), lod.getLevel(0).length);
+
+        for (int level = 1; level < lod.getLevelCount(); level++) {
+            final int[] kept = lod.getLevel(level);
+            final float radius = lod.getRadius(level);
+            assertTrue(kept.length < lod.getLevel(level - 1).length);
+            for (int i = 0; i < letter.size(); i++) {
+                float best = Float.POSITIVE_INFINITY;
+                for (int cell : kept) {
+                    best = Math.min(best, (float) Math.hypot(
+                            letter.getX(cell) - letter.getX(i), letter.getY(cell) - letter.getY(i)));
+                }
+                assertTrue("point " + i + " at level " + level, best <= radius * 1.0001f);
+            }
+        }
+    }
+
+    @Test
+    public void straightRunsKeepTheirDotsAtLargeSizes() {
+        // An "L" of 100 evenly spaced dots: 50 down the stem, 50 along the foot.
+        final Letter letter = new Letter(100);
+        for (int i = 0; i < 50; i++) {
+            letter.add(0.1f, 0.1f + 0.8f * i / 50f);
+        }
+        for (int i = 0; i < 50; i++) {
+            letter.add(0.1f + 0.8f * i / 49f, 0.9f);
+        }
+        final LetterLod lod = LetterLod.of(letter);
+        assertEquals(0, lod.forSize(2048, 2048, 1f));
+        assertEquals(100, lod.getLevel(lod.forSize(2048, 2048, 1f)).length);
+        // At thumbnail size neighbouring dots merge.
+        assertTrue(lod.getLevel(lod.forSize(16, 16, 1f)).length < 100);
+    }
+
+    @Test
+    public void denseGlyphDropsToAFewHundredDotsAtHalfADot() {
+        // An "a" traced at 5000 points: a bowl of 4000, then a stem of 1000.
+        final Letter letter = new Letter(5000);
+        for (int i = 0; i < 4000; i++) {
+            final double angle = 2 * Math.PI * i / 4000;
+            letter.add(0.5f + 0.35f * (float) Math.cos(angle),
+                    0.55f + 0.35f * (float) Math.sin(angle));
+        }
+        for (int i = 0; i < 1000; i++) {
+            letter.add(0.85f, 0.1f + 0.8f * i / 1000f);
+        }
+        final LetterLod lod = LetterLod.of(letter);
+        // A 12dp dot on a 300 px view at mdpi: skipped dots may be 6 px from a drawn one.
+        final int level = lod.forSize(300, 300, 6f);
+        final int kept = lod.getLevel(level).length;
+        assertTrue("kept " + kept, kept < 500);
+        assertTrue("kept " + kept, kept > 50);
+        assertTrue(lod.getRadius(level) * 300 <= 6f);
+    }
+
+    @Test
+    public void sparseLettersAreNotSimplified() {
+        final Letter letter = new Letter(3);
+        letter.add(0f, 0f);
+        letter.add(0f, 0f);
+        letter.add(1f, 1f);
+        final LetterLod lod = LetterLod.of(letter);
+        assertEquals(1, lod.getLevelCount());
+        assertEquals(0, lod.forSize(0, 0, 1f));
+    }
+}
@@ -0,0 +1,149 @@
+package com.zappyware.learnletters.geometry;
+
+import com.zappyware.learnletters.entities.Letter;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PointGridIndexTest {
+
+    private static final float HALF_WIDTH = 0.03f;
+    private static final float HALF_HEIGHT = 0.02f;
+    private static final int SEGMENT_SAMPLES = 4000;
+
+    private static Letter randomDots(Random random, int count) {
+        final Letter letter = new Letter(count);
+        for (int i = 0; i < count; i++) {
+            letter.add(random.nextFloat(), random.nextFloat());
+        }
+        return letter;
+    }
+
+    /** The reference the index must agree with: the first point whose box holds (x, y). */
+    private static int linearQuery(Letter letter, float x, float y) {
+        for (int i = 0; i < letter.size(); i++) {
+            final float dx = x - letter.getX(i);
+            final float dy = y - letter.getY(i);
+            if (dx >= -HALF_WIDTH && dx < HALF_WIDTH && dy >= -HALF_HEIGHT && dy < HALF_HEIGHT) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void queryMatchesLinearScan() {
+        final Random random = new Random(5);
+        final PointGridIndex index = new PointGridIndex();
+        for (int count : new int[]{1, 9, 200}) {
+            final Letter letter = randomDots(random, count);
+            index.build(letter, HALF_WIDTH, HALF_HEIGHT);
+            for (int q = 0; q < 5000; q++) {
+                // Slightly outside the unit square too, where the grid clamps.
+                final float x = random.nextFloat() * 1.2f - 0.1f;
+                final float y = random.nextFloat() * 1.2f - 0.1f;
+                assertEquals(linearQuery(letter, x, y), index.query(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void queryOnEmptyIndex() {
+        final PointGridIndex index = new PointGridIndex();
+        index.build(new Letter(), HALF_WIDTH, HALF_HEIGHT);
+        assertEquals(-1, index.query(0.5f, 0.5f));
+        assertEquals(0, index.querySegment(0f, 0f, 1f, 1f, new int[4]));
+    }
+
+    @Test
+    public void segmentFindsEveryPointDenseSamplingFinds() {
+        final Random random = new Random(6);
+        final PointGridIndex index = new PointGridIndex();
+        final Letter letter = randomDots(random, 150);
+        index.build(letter, HALF_WIDTH, HALF_HEIGHT);
+        final int[] hits = new int[letter.size()];
+
+        for (int s = 0; s < 300; s++) {
+            final float x0 = random.nextFloat();
+            final float y0 = random.nextFloat();
+            // Short moves like touch samples, and a few across the whole view.
+            final float reach = s % 10 == 0 ? 1f : 0.1f;
+            final float x1 = x0 + (random.nextFloat() - 0.5f) * reach;
+            final float y1 = y0 + (random.nextFloat() - 0.5f) * reach;
+            final int count = index.querySegment(x0, y0, x1, y1, hits);
+
+            final boolean[] found = new boolean[letter.size()];
+            for (int i = 0; i < count; i++) {
+                assertTrue("reported twice: " + hits[i], !found[hits[i]]);
+                found[hits[i]] = true;
+            }
+
+            // Every box a sample lands in is crossed by the segment.
+            final boolean[] sampled = new boolean[letter.size()];
+            for (int k = 0; k <= SEGMENT_SAMPLES; k++) {
+                final float t = k / (float) SEGMENT_SAMPLES;
+                final float x = x0 + t * (x1 - x0);
+                final float y = y0 + t * (y1 - y0);
+                for (int i = 0; i < letter.size(); i++) {
+                    if (boxDistance(letter, i, x, y) == 0f) {
+                        sampled[i] = true;
+                        assertTrue("missed point " + i, found[i]);
+                    }
+                }
+            }
+
+            // Every reported box is crossed, or grazed between two samples.
+            final float step = (float) Math.hypot(x1 - x0, y1 - y0) / SEGMENT_SAMPLES;
+            for (int i = 0; i < count; i++) {
+                if (!sampled[hits[i]]) {
+                    assertTrue("far point " + hits[i],
+                            closestBoxDistance(letter, hits[i], x0, y0, x1, y1) <= step);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void segmentHitsAreInEntryOrder() {
+        final Letter letter = new Letter(4);
+        letter.add(0.8f, 0.5f);
+        letter.add(0.2f, 0.5f);
+        letter.add(0.5f, 0.5f);
+        letter.add(0.5f, 0.9f);
+        final PointGridIndex index = new PointGridIndex();
+        index.build(letter, HALF_WIDTH, HALF_HEIGHT);
+
+        final int[] hits = new int[4];
+        assertEquals(3, index.querySegment(0.1f, 0.5f, 0.9f, 0.5f, hits));
+        assertEquals(1, hits[0]);
+        assertEquals(2, hits[1]);
+        assertEquals(0, hits[2]);
+
+        // A short output keeps the first points along the segment.
+        final int[] first = new int[2];
+        assertEquals(2, index.querySegment(0.9f, 0.5f, 0.1f, 0.5f, first));
+        assertEquals(0, first[0]);
+        assertEquals(2, first[1]);
+    }
+
+    /** Distance from (x, y) to the point's closed hit box; 0 inside. */
+    private static float boxDistance(Letter letter, int i, float x, float y) {
+        final float dx = Math.max(0f, Math.abs(x - letter.getX(i)) - HALF_WIDTH);
+        final float dy = Math.max(0f, Math.abs(y - letter.getY(i)) - HALF_HEIGHT);
+        return (float) Math.hypot(dx, dy);
+    }
+
+    private static float closestBoxDistance(Letter letter, int i,
+                                            float x0, float y0, float x1, float y1) {
+        float best = Float.POSITIVE_INFINITY;
+        for (int k = 0; k <= SEGMENT_SAMPLES; k++) {
+            final float t = k / (float) SEGMENT_SAMPLES;
+            best = Math.min(best, boxDistance(letter, i, x0 + t * (x1 - x0), y0 + t * (y1 - y0)));
+        }
+        return best;
+    }
+}
@@ -0,0 +1,116 @@
+package com.zappyware.learnletters.geometry;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class StrokeFilterTest {
+
+    private static final float SPACING = 5f;
+
+    /** Records what the filter emits. */
+    private static final class Samples implements StrokeFilter.SampleSink {
+        final float[] xs = new float[1024];
+        final float[] ys = new float[1024];
+        final long[] times = new long[1024];
+        int size;
+
+        @Override
+        public void onSample(float x, float y, long time) {
+            xs[size] = x;
+            ys[size] = y;
+            times[size] = time;
+            size++;
+        }
+
+        float gap(int index) {
+            return (float) Math.hypot(xs[index] - xs[index - 1], ys[index] - ys[index - 1]);
+        }
+    }
+
+    @Test
+    public void samplesAreEvenlySpaced() {
+        final StrokeFilter filter = new StrokeFilter(SPACING);
+        final Samples samples = new Samples();
+        filter.start(0f, 0f, 0L);
+        // Uneven steps along a diagonal, as touch events arrive.
+        final Random random = new Random(3);
+        float position = 0f;
+        long time = 0L;
+        for (int i = 0; i < 200; i++) {
+            position += 0.2f + 2f * random.nextFloat();
+            time += 8L;
+            filter.add(position * 0.6f, position * 0.8f, time, samples);
+        }
+        filter.finish(samples);
+
+        assertTrue(samples.size > 20);
+        for (int i = 1; i < samples.size - 1; i++) {
+            assertEquals("gap " + i, SPACING, samples.gap(i), 1e-2f);
+        }
+        assertTrue(samples.gap(samples.size - 1) <= SPACING + 1e-2f);
+        for (int i = 1; i < samples.size; i++) {
+            assertTrue(samples.times[i] >= samples.times[i - 1]);
+        }
+    }
+
+    @Test
+    public void restingFingerEmitsNothing() {
+        final StrokeFilter filter = new StrokeFilter(SPACING);
+        final Samples samples = new Samples();
+        filter.start(100f, 100f, 0L);
+        for (int i = 1; i <= 100; i++) {
+            filter.add(100f, 100f, i * 8L, samples);
+        }
+        filter.finish(samples);
+        assertEquals(0, samples.size);
+
+        // Jitter well under a spacing is smoothed away rather than resampled.
+        final Random random = new Random(5);
+        filter.start(100f, 100f, 0L);
+        for (int i = 1; i <= 100; i++) {
+            filter.add(100f + random.nextFloat() - 0.5f, 100f + random.nextFloat() - 0.5f,
+                    i * 8L, samples);
+        }
+        assertEquals(0, samples.size);
+    }
+
+    @Test
+    public void strokeEndsAtTheLiftPoint() {
+        final StrokeFilter filter = new StrokeFilter(SPACING);
+        final Samples samples = new Samples();
+        filter.start(0f, 0f, 0L);
+        // A quick flick: the filtered position lags well behind the finger.
+        for (int i = 1; i <= 10; i++) {
+            filter.add(i * 20f, 0f, i * 8L, samples);
+        }
+        assertTrue(filter.getX() < 200f - SPACING);
+        filter.finish(samples);
+
+        final int last = samples.size - 1;
+        assertEquals(200f, samples.xs[last], 0f);
+        assertEquals(0f, samples.ys[last], 0f);
+        assertEquals(80L, samples.times[last]);
+        // The lag is covered by evenly spaced samples, not one long jump.
+        for (int i = 1; i <= last; i++) {
+            assertTrue("gap " + i, samples.gap(i) <= SPACING + 1e-2f);
+        }
+    }
+
+    @Test
+    public void disabledFilterPassesSamplesThrough() {
+        final StrokeFilter filter = new StrokeFilter(SPACING);
+        filter.setEnabled(false);
+        final Samples samples = new Samples();
+        filter.start(0f, 0f, 0L);
+        filter.add(0.5f, 0f, 8L, samples);
+        filter.add(30f, 40f, 16L, samples);
+        filter.finish(samples);
+        assertEquals(2, samples.size);
+        assertEquals(30f, samples.xs[1], 0f);
+        assertEquals(40f, samples.ys[1], 0f);
+    }
+}
@@ -0,0 +1,145 @@
+package com.zappyware.learnletters.io;
+
+import com.zappyware.learnletters.entities.Letter;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LetterLibraryTest {
+
+    private static final float TOLERANCE = 0.5f / 65535f + 1e-7f;
+
+    private static Letter[] randomLetters(Random random, int count) {
+        final Letter[] letters = new Letter[count];
+        for (int i = 0; i < count; i++) {
+            letters[i] = new Letter();
+            final int points = 1 + random.nextInt(40);
+            for (int p = 0; p < points; p++) {
+                letters[i].add(random.nextFloat(), random.nextFloat());
+            }
+        }
+        return letters;
+    }
+
+    private static byte[] write(Letter[] letters) {
+        final LetterLibraryWriter writer = new LetterLibraryWriter();
+        for (int i = 0; i < letters.length; i++) {
+            writer.add("letter " + i + " \u00e1", letters[i]);
+        }
+        return writer.toByteArray();
+    }
+
+    private static void assertSameLetter(Letter expected, Letter actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getX(i), actual.getX(i), TOLERANCE);
+            assertEquals(expected.getY(i), actual.getY(i), TOLERANCE);
+        }
+    }
+
+    @Test
+    public void roundTripThroughFile() throws IOException {
+        final Letter[] letters = randomLetters(new Random(10), 30);
+        final File file = File.createTempFile("letters", ".lib");
+        try {
+            final LetterLibraryWriter writer = new LetterLibraryWriter();
+            for (int i = 0; i < letters.length; i++) {
+                writer.add("letter " + i + " \u00e1", letters[i]);
+            }
+            writer.writeTo(file);
+
+            final LetterLibrary library = LetterLibrary.open(file);
+            assertEquals(letters.length, library.size());
+            for (int i = 0; i < letters.length; i++) {
+                assertEquals("letter " + i + " \u00e1", library.getName(i));
+                assertEquals(i, library.indexOf("letter " + i + " \u00e1"));
+                assertSameLetter(letters[i], library.getLetter(i));
+            }
+            assertEquals(-1, library.indexOf("missing"));
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    @Test
+    public void lettersAreReadOnlyAndCachedWithinBounds() throws IOException {
+        final Letter[] letters = randomLetters(new Random(11), 10);
+        final LetterLibrary library = new LetterLibrary(ByteBuffer.wrap(write(letters)), 2);
+        final Letter first = library.getLetter(0);
+        assertTrue(first.isReadOnly());
+        try {
+            first.add(0f, 0f);
+            fail("letter is writable");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        // Still cached right after, and decoded again once pushed out.
+        assertTrue(first == library.getLetter(0));
+        library.getLetter(1);
+        library.getLetter(2);
+        final Letter again = library.getLetter(0);
+        assertTrue(first != again);
+        assertSameLetter(letters[0], again);
+    }
+
+    @Test
+    public void emptyLibrary() throws IOException {
+        final LetterLibrary library = new LetterLibrary(ByteBuffer.wrap(write(new Letter[0])));
+        assertEquals(0, library.size());
+        assertEquals(-1, library.indexOf("a"));
+    }
+
+    @Test(expected = IOException.class)
+    public void badMagicIsRejected() throws IOException {
+        final byte[] bytes = write(randomLetters(new Random(12), 2));
+        bytes[0] ^= 1;
+        new LetterLibrary(ByteBuffer.wrap(bytes));
+    }
+
+    @Test(expected = IOException.class)
+    public void truncatedIndexIsRejected() throws IOException {
+        final byte[] bytes = write(randomLetters(new Random(13), 4));
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.limit(LetterLibrary.HEADER_SIZE + 2 * LetterLibrary.ENTRY_SIZE);
+        new LetterLibrary(buffer.slice());
+    }
+
+    @Test
+    public void entriesOutsideTheFileAreRejected() throws IOException {
+        final byte[] bytes = write(randomLetters(new Random(14), 3));
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        final int entry = LetterLibrary.HEADER_SIZE + LetterLibrary.ENTRY_SIZE;
+        // Letter 1: data running past the end, and a name inside the header.
+        buffer.putInt(entry + 12, bytes.length);
+        buffer.putInt(entry, 0);
+        final LetterLibrary library = new LetterLibrary(buffer);
+
+        assertSameLetter(library.getLetter(0), library.getLetter(0));
+        try {
+            library.getLetter(1);
+            fail("decoded a letter outside the file");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        try {
+            library.getName(1);
+            fail("read a name inside the header");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        try {
+            library.indexOf("absent");
+            fail("scanned a name inside the header");
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.zappyware.learnletters.io;
+
+import com.zappyware.learnletters.entities.Letter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class PatternCodecTest {
+
+    /** Coordinates are stored in 16 bits, so a round trip may move them by half a step. */
+    private static final float TOLERANCE = 0.5f / 65535f + 1e-7f;
+
+    private static Letter randomLetter(Random random, int count) {
+        final Letter letter = new Letter(count);
+        for (int i = 0; i < count; i++) {
+            letter.add(random.nextFloat(), random.nextFloat());
+        }
+        return letter;
+    }
+
+    @Test
+    public void roundTripKeepsPointsWithinQuantization() {
+        final Random random = new Random(1);
+        for (int count : new int[]{0, 1, 2, 17, 500}) {
+            final Letter letter = randomLetter(random, count);
+            final Letter decoded = PatternCodec.decode(PatternCodec.encode(letter));
+            assertEquals(count, decoded.size());
+            for (int i = 0; i < count; i++) {
+                assertEquals(letter.getX(i), decoded.getX(i), TOLERANCE);
+                assertEquals(letter.getY(i), decoded.getY(i), TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    public void roundTripClampsToUnitSquare() {
+        final Letter letter = new Letter(2);
+        letter.add(-0.5f, 1.5f);
+        letter.add(1f, 0f);
+        final Letter decoded = PatternCodec.decode(PatternCodec.encode(letter));
+        assertEquals(0f, decoded.getX(0), 0f);
+        assertEquals(1f, decoded.getY(0), 0f);
+        assertEquals(1f, decoded.getX(1), 0f);
+        assertEquals(0f, decoded.getY(1), 0f);
+    }
+
+    @Test
+    public void encodeIntoBufferAtOffset() {
+        final Letter letter = randomLetter(new Random(2), 40);
+        final byte[] out = new byte[3 + PatternCodec.maxEncodedSize(letter.size())];
+        final int length = PatternCodec.encode(letter, out, 3);
+
+        final Letter decoded = new Letter();
+        PatternCodec.decode(out, 3, length, decoded);
+        assertEquals(letter.size(), decoded.size());
+        for (int i = 0; i < letter.size(); i++) {
+            assertEquals(letter.getX(i), decoded.getX(i), TOLERANCE);
+            assertEquals(letter.getY(i), decoded.getY(i), TOLERANCE);
+        }
+    }
+
+    @Test
+    public void truncatedDataIsRejected() {
+        final byte[] encoded = PatternCodec.encode(randomLetter(new Random(3), 20));
+        for (int length = 0; length < encoded.length; length++) {
+            try {
+                PatternCodec.decode(encoded, 0, length, new Letter());
+                fail("decoded " + length + " of " + encoded.length + " bytes");
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownVersionIsRejected() {
+        final byte[] encoded = PatternCodec.encode(randomLetter(new Random(4), 5));
+        encoded[0] = (byte) (PatternCodec.VERSION + 1);
+        PatternCodec.decode(encoded);
+    }
+
+    @Test
+    public void cellsRoundTrip() {
+        final int[] cells = {0, 5, 127, 128, 70000, 3};
+        final int[] decoded = PatternCodec.decodeCells(PatternCodec.encodeCells(cells, 5));
+        assertEquals(5, decoded.length);
+        for (int i = 0; i < decoded.length; i++) {
+            assertEquals(cells[i], decoded[i]);
+        }
+        assertEquals(0, PatternCodec.decodeCells(PatternCodec.encodeCells(cells, 0)).length);
+    }
+
+    @Test
+    public void truncatedCellsAreRejected() {
+        final byte[] encoded = PatternCodec.encodeCells(new int[]{300, 1, 70000}, 3);
+        for (int length = 0; length < encoded.length; length++) {
+            try {
+                PatternCodec.decodeCells(Arrays.copyOf(encoded, length));
+                fail("decoded " + length + " of " + encoded.length + " bytes");
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.zappyware.learnletters.recognition;
+
+import com.zappyware.learnletters.entities.Letter;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class TemplateIndexTest {
+
+    private static Letter randomStroke(Random random, int count) {
+        final Letter letter = new Letter(count);
+        float x = random.nextFloat();
+        float y = random.nextFloat();
+        for (int i = 0; i < count; i++) {
+            x = Math.max(0f, Math.min(1f, x + (random.nextFloat() - 0.5f) * 0.2f));
+            y = Math.max(0f, Math.min(1f, y + (random.nextFloat() - 0.5f) * 0.2f));
+            letter.add(x, y);
+        }
+        return letter;
+    }
+
+    private static StrokeTemplate[] randomTemplates(Random random, int count) {
+        final StrokeTemplate[] templates = new StrokeTemplate[count];
+        for (int i = 0; i < count; i++) {
+            templates[i] = StrokeTemplate.of("t" + i, randomStroke(random, 8 + random.nextInt(24)),
+                    StrokeRecognizer.DEFAULT_SAMPLE_COUNT);
+        }
+        return templates;
+    }
+
+    @Test
+    public void topKMatchesLinearScan() {
+        final Random random = new Random(7);
+        final StrokeRecognizer recognizer = new StrokeRecognizer();
+        for (int templateCount : new int[]{1, 5, 64, 300}) {
+            final StrokeTemplate[] templates = randomTemplates(random, templateCount);
+            final TemplateIndex index = new TemplateIndex(templates);
+            assertEquals(templateCount, index.size());
+
+            for (int q = 0; q < 20; q++) {
+                final Letter trace = randomStroke(random, 10 + random.nextInt(40));
+                recognizer.setTrace(trace, 1f, 1f);
+                final float[] expected = new float[templateCount];
+                for (int i = 0; i < templateCount; i++) {
+                    expected[i] = recognizer.distance(templates[i], Float.POSITIVE_INFINITY);
+                }
+                Arrays.sort(expected);
+
+                final int k = 1 + q % 5;
+                final int[] indices = new int[k];
+                final float[] distances = new float[k];
+                final int found = index.search(trace, 1f, 1f, k, indices, distances);
+                assertEquals(Math.min(k, templateCount), found);
+                for (int r = 0; r < found; r++) {
+                    // Ties may come in either order, so compare distances.
+                    assertEquals(expected[r], distances[r], 1e-6f);
+                    assertEquals(distances[r],
+                            recognizer.distance(templates[indices[r]], Float.POSITIVE_INFINITY),
+                            1e-6f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shortTraceFindsNothing() {
+        final TemplateIndex index = new TemplateIndex(randomTemplates(new Random(8), 10));
+        final Letter trace = new Letter(1);
+        trace.add(0.5f, 0.5f);
+        assertEquals(0, index.search(trace, 1f, 1f, 3, new int[3], new float[3]));
+    }
+}